@@ -0,0 +1,179 @@
+package engine;
+
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import dom2app.ISingleMeasureRequest;
+
+
+/**
+ * A thread-safe registry that retains a bounded number of answers
+ * <p>
+ * The parameters of every request are kept, but the answers are retained according to a {@link RetentionPolicy}:
+ * the least recently used answers are evicted once there are too many of them or they hold too many observations,
+ * and answers that were not used for the time-to-idle of the policy expire. A lookup of an evicted or expired
+ * answer recomputes it from the parameters of its request, against the data loaded at the time of the lookup, and
+ * retains it again. The newest answer is always retained, even if it is larger than the limits on its own.
+ * <p>
+ * Registrations and lookups take a single lock, which is never held while an answer is recomputed: a slow 
+ * recomputation only delays its own lookup, and its answer is published under the lock afterwards unless the 
+ * name was registered again in the meantime. The set of names is a live view that never blocks.
+ */
+final class BoundedRequestRegistry implements RequestRegistry {
+
+    /**
+     * The parameters of a request and, while it is retained, its answer
+     */
+    final private static class Entry {
+        final private Supplier<ISingleMeasureRequest> recompute;
+        private ISingleMeasureRequest request;
+        private int observations;
+        private long bytes;
+        private long lastUsed;
+
+        Entry(final Supplier<ISingleMeasureRequest> recompute) {
+            this.recompute = recompute;
+        }
+    }
+
+    final private RetentionPolicy policy;
+    final private long timeToIdleNanos;
+    final private LongSupplier clock;
+
+    // every registered name; the answers are only referenced by the entries of the retained map
+    final private ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    // the entries whose answers are retained, from the least to the most recently used
+    final private LinkedHashMap<String, Entry> retained = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long hits = 0;
+    private long recomputations = 0;
+    private long evictions = 0;
+    private long expirations = 0;
+    private long retainedObservations = 0;
+    private long retainedBytes = 0;
+
+    /**
+     * Constructs a registry
+     * @param policy    the limits of the retained answers
+     */
+    BoundedRequestRegistry(final RetentionPolicy policy) {
+        this(policy, System::nanoTime);
+    }
+
+    /**
+     * Constructs a registry with a custom clock
+     * @param policy    the limits of the retained answers
+     * @param clock     returns the current time in nanoseconds
+     */
+    BoundedRequestRegistry(final RetentionPolicy policy, final LongSupplier clock) {
+        this.policy = policy;
+        this.timeToIdleNanos = policy.getTimeToIdle().toNanos();
+        this.clock = clock;
+    }
+
+    @Override
+    public synchronized void register(final ISingleMeasureRequest request, final Supplier<ISingleMeasureRequest> recompute) {
+        final String name = request.getRequestName();
+        final Entry entry = new Entry(recompute);
+
+        final Entry replaced = entries.put(name, entry);
+        if (replaced != null && retained.remove(name) != null) release(replaced);
+
+        retain(name, entry, request);
+    }
+
+    @Override
+    public ISingleMeasureRequest get(final String requestName) {
+        final Entry entry = entries.get(requestName);
+        if (entry == null) return null;
+
+        synchronized (this) {
+            final long now = clock.getAsLong();
+            expire(now);
+
+            if (retained.get(requestName) == entry) {
+                hits += 1;
+                entry.lastUsed = now;
+                return entry.request;
+            }
+            recomputations += 1;
+        }
+
+        final ISingleMeasureRequest request = entry.recompute.get();
+
+        synchronized (this) {
+            // another lookup may have published the entry meanwhile, or a registration replaced it
+            if (entries.get(requestName) != entry) return request;
+            if (retained.get(requestName) == entry) return entry.request;
+
+            retain(requestName, entry, request);
+            return request;
+        }
+    }
+
+    @Override
+    public Set<String> names() {
+        return Collections.unmodifiableSet(entries.keySet());
+    }
+
+    @Override
+    public synchronized RequestStoreMetrics metrics() {
+        expire(clock.getAsLong());
+        return new RequestStoreMetrics(hits, recomputations, evictions, expirations, retained.size(), retainedObservations, retainedBytes);
+    }
+
+    /**
+     * Retains the answer of an entry as the most recently used one and evicts older answers to respect the limits
+     */
+    final private void retain(final String name, final Entry entry, final ISingleMeasureRequest request) {
+        final long now = clock.getAsLong();
+        expire(now);
+
+        entry.request = request;
+        entry.observations = RequestStoreMetrics.observationsOf(request);
+        entry.bytes = RequestStoreMetrics.bytesOf(request);
+        entry.lastUsed = now;
+        retained.put(name, entry);
+        retainedObservations += entry.observations;
+        retainedBytes += entry.bytes;
+
+        final Iterator<Entry> eldest = retained.values().iterator();
+        while (retained.size() > 1
+            && (retained.size() > policy.getMaxRequests() || retainedObservations > policy.getMaxObservations())) {
+            release(eldest.next());
+            eldest.remove();
+            evictions += 1;
+        }
+    }
+
+    /**
+     * Drops the answers that have been idle for longer than the time-to-idle; they are the least recently used ones
+     */
+    final private void expire(final long now) {
+        final Iterator<Entry> eldest = retained.values().iterator();
+        while (eldest.hasNext()) {
+            final Entry entry = eldest.next();
+            if (now - entry.lastUsed < timeToIdleNanos) return;
+            release(entry);
+            eldest.remove();
+            expirations += 1;
+        }
+    }
+
+    /**
+     * Forgets the answer of an entry that is no longer retained
+     */
+    final private void release(final Entry entry) {
+        retainedObservations -= entry.observations;
+        retainedBytes -= entry.bytes;
+        entry.request = null;
+        entry.observations = 0;
+        entry.bytes = 0;
+    }
+}
@@ -0,0 +1,53 @@
+package engine;
+
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import dom2app.ISingleMeasureRequest;
+
+
+/**
+ * A thread-safe registry that indexes the requests by name
+ * <p>
+ * Lookups never block and registrations only contend with registrations of names in the same bin of the
+ * underlying {@code ConcurrentHashMap}. A request replaces an earlier request with the same name. Every request 
+ * is retained.
+ */
+final class ConcurrentRequestRegistry implements RequestRegistry {
+    final private ConcurrentHashMap<String, ISingleMeasureRequest> requests = new ConcurrentHashMap<>();
+    final private LongAdder hits = new LongAdder();
+    final private LongAdder retainedObservations = new LongAdder();
+    final private LongAdder retainedBytes = new LongAdder();
+
+    @Override
+    public void register(final ISingleMeasureRequest request, final Supplier<ISingleMeasureRequest> recompute) {
+        final ISingleMeasureRequest replaced = requests.put(request.getRequestName(), request);
+        if (replaced != null) {
+            retainedObservations.add(-RequestStoreMetrics.observationsOf(replaced));
+            retainedBytes.add(-RequestStoreMetrics.bytesOf(replaced));
+        }
+        retainedObservations.add(RequestStoreMetrics.observationsOf(request));
+        retainedBytes.add(RequestStoreMetrics.bytesOf(request));
+    }
+
+    @Override
+    public ISingleMeasureRequest get(final String requestName) {
+        final ISingleMeasureRequest request = requests.get(requestName);
+        if (request != null) hits.increment();
+        return request;
+    }
+
+    @Override
+    public Set<String> names() {
+        return Collections.unmodifiableSet(requests.keySet());
+    }
+
+    @Override
+    public RequestStoreMetrics metrics() {
+        return new RequestStoreMetrics(hits.sum(), 0, 0, 0, requests.size(), retainedObservations.sum(), retainedBytes.sum());
+    }
+}
@@ -0,0 +1,193 @@
+package engine;
+
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import dom2app.IMeasurementVector;
+
+import server.database.Snapshot;
+import server.parsing.ParserFactory;
+import server.parsing.ParserFactory.ParserType;
+
+
+/**
+ * Watches a directory and reloads every data file that is created or modified in it into a controller
+ * <p>
+ * The watcher runs on a single daemon thread. Files are handed to {@link IMainController#reload}, so the rows of
+ * a file are upserted into a new version of the database that is published atomically; requests are served from
+ * the previous version meanwhile. Since a file usually triggers several events while it is being written, the
+ * watcher waits for {@value #QUIET_PERIOD_MILLIS} ms without events before it reloads the files that changed, but 
+ * no more than {@value #MAX_DELAY_MILLIS} ms after the first event. When events were lost, the watcher rescans the
+ * directory and reloads all its files.
+ * Text files are recognized by their ".csv" or ".tsv" extension and snapshots by their first bytes; other files
+ * are ignored.
+ */
+final public class DirectoryWatcher implements Closeable {
+    final static long QUIET_PERIOD_MILLIS = 200;
+    final static long MAX_DELAY_MILLIS    = 2000;
+
+    /**
+     * Receives the outcome of every reload; it is called on the thread of the watcher
+     */
+    public interface Listener {
+        /**
+         * Called after a file has been reloaded
+         * @param file      the file
+         * @param changes   the rows that were inserted or replaced
+         */
+        public void reloaded(final Path file, final List<IMeasurementVector> changes);
+
+        /**
+         * Called when a file could not be reloaded; the data loaded so far are left untouched
+         * <p>
+         * An exception thrown by this method is handed to the uncaught exception handler of the watcher thread, 
+         * which keeps watching.
+         * @param file      the file
+         * @param error     the reason of the failure
+         */
+        public void failed(final Path file, final Exception error);
+    }
+
+    final private IMainController controller;
+    final private Path directory;
+    final private Listener listener;
+    final private WatchService watchService;
+    final private Thread thread;
+
+    /**
+     * Starts watching a directory
+     * @param controller    the controller the files are reloaded into
+     * @param directory     the directory to watch
+     * @param listener      receives the outcome of every reload
+     * @throws IOException  if the directory cannot be watched
+     */
+    public DirectoryWatcher(final IMainController controller, final Path directory, final Listener listener) throws IOException {
+        this.controller = controller;
+        this.directory = directory;
+        this.listener = listener;
+        this.watchService = FileSystems.getDefault().newWatchService();
+
+        directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+
+        this.thread = new Thread(this::run, "directory-watcher-" + directory.getFileName());
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Waits for changed files and reloads them, until the watcher is closed
+     */
+    final private void run() {
+        try {
+            while (true) {
+                final Set<Path> changed = new LinkedHashSet<>();
+                boolean overflow = false;
+
+                WatchKey key = watchService.take();
+                final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(MAX_DELAY_MILLIS);
+
+                while (key != null) {
+                    for (final WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                            overflow = true;
+                        } else {
+                            changed.add(directory.resolve((Path) event.context()));
+                        }
+                    }
+                    key.reset();
+
+                    final long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) break;
+                    key = watchService.poll(Math.min(TimeUnit.MILLISECONDS.toNanos(QUIET_PERIOD_MILLIS), remaining), TimeUnit.NANOSECONDS);
+                }
+
+                if (overflow) rescan(changed);
+                changed.forEach(this::reload);
+            }
+        } catch (final InterruptedException | ClosedWatchServiceException e) {
+            // the watcher was closed
+        }
+    }
+
+    /**
+     * Reloads a file into the controller if it is a data file
+     */
+    final private void reload(final Path file) {
+        try {
+            if (!Files.isRegularFile(file)) return;
+
+            final String delimiter;
+            if (Snapshot.isSnapshot(file)) {
+                delimiter = "";
+            } else {
+                final Optional<ParserType> type = guessParserType(file);
+                if (!type.isPresent()) return;
+                delimiter = type.get().getDelimiter();
+            }
+
+            listener.reloaded(file, controller.reload(file.toString(), delimiter));
+        } catch (final IOException | RuntimeException e) {
+            fail(file, e);
+        }
+    }
+
+    /**
+     * Adds every file of the directory to the changed files, after events were lost
+     */
+    final private void rescan(final Set<Path> changed) {
+        try (final DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (final Path file : files) changed.add(file);
+        } catch (final IOException | RuntimeException e) {
+            fail(directory, e);
+        }
+    }
+
+    /**
+     * Reports a failure to the listener; an exception of the listener goes to the uncaught exception handler 
+     * so that it neither stops the watcher nor goes unnoticed
+     */
+    final private void fail(final Path file, final Exception error) {
+        try {
+            listener.failed(file, error);
+        } catch (final RuntimeException e) {
+            thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+        }
+    }
+
+    /**
+     * Guesses the parser type of a file from its extension
+     */
+    final private static Optional<ParserType> guessParserType(final Path file) {
+        if (!file.getFileName().toString().contains(".")) return Optional.empty();
+        return ParserFactory.guessDelimiterFromFileExtension(file);
+    }
+
+    /**
+     * Stops watching the directory and waits for the reload in progress, if any, to finish
+     */
+    @Override
+    final public void close() throws IOException {
+        watchService.close();
+        try {
+            thread.join();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
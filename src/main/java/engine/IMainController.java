@@ -22,6 +22,21 @@ public interface IMainController {
 	 */
 	List<IMeasurementVector> load(String fileName, String delimiter) throws FileNotFoundException, IOException;
 
+	/**
+	 * Loads a refreshed version of a structured text file, or of a snapshot, into the already loaded data
+	 * 
+	 * Every line is matched to the loaded row with the same country and indicator. New rows are inserted and rows 
+	 * whose ObjectId or measurements changed, e.g. because of new year columns, are replaced; rows that did not 
+	 * change are kept along with their computed stats. Rows missing from the file are kept as well.
+	 * 
+	 * @param fileName a String with the path of the file to load
+	 * @param delimiter a String that denotes the delimiter of the fields inside each line
+	 * @return a List<IMeasurementVector> with the rows that were inserted or replaced
+	 * @throws FileNotFoundException when a fileName specified is not present as a file
+	 * @throws IOException if sth goes wrong during the reading of the input file
+	 */
+	List<IMeasurementVector> reload(String fileName, String delimiter) throws FileNotFoundException, IOException;
+
 	/**
 	 * A request to the server that selects a specific country and a specific indicator 
 	 * 
@@ -52,18 +67,87 @@ public interface IMainController {
 	ISingleMeasureRequest findSingleCountryIndicatorYearRange(String requestName, String countryName,
 			String indicatorString, int startYear, int endYear) throws IllegalArgumentException;
 
+	/**
+	 * A request to the server that sums the data of a country and an indicator into buckets of consecutive years
+	 * 
+	 * Buckets are aligned to multiples of their size, e.g. 1980-1989 and 1990-1999 for decades, and every bucket is 
+	 * reported as a (first year of the bucket, sum) pair; buckets without data are left out.
+	 * 
+	 * @param requestName a String with the name that the request will take
+	 * @param countryName a String with the name of the country
+	 * @param indicatorString a String with the name of the indicator
+	 * @param bucketYears an Integer with the number of years of a bucket, e.g. 5 or 10
+	 * @return a new ISingleMeasureRequest with the result of the request 
+	 * @throws IllegalArgumentException if bucketYears is not positive
+	 * @see dom2app.ISingleMeasureRequest
+	 */
+	ISingleMeasureRequest findBucketedCountryIndicator(String requestName, String countryName, String indicatorString,
+			int bucketYears) throws IllegalArgumentException;
+
+	/**
+	 * A request to the server that smooths the data of a country and an indicator with a rolling sum
+	 * 
+	 * Every year is reported with the sum of the trailing window of windowYears years that ends with it, starting 
+	 * with the first full window; windows without data are left out.
+	 * 
+	 * @param requestName a String with the name that the request will take
+	 * @param countryName a String with the name of the country
+	 * @param indicatorString a String with the name of the indicator
+	 * @param windowYears an Integer with the number of years of a window
+	 * @return a new ISingleMeasureRequest with the result of the request 
+	 * @throws IllegalArgumentException if windowYears is not positive
+	 * @see dom2app.ISingleMeasureRequest
+	 */
+	ISingleMeasureRequest findRollingCountryIndicator(String requestName, String countryName, String indicatorString,
+			int windowYears) throws IllegalArgumentException;
+
+	/**
+	 * Ranks the loaded data by a trend criterion and returns the k best of them
+	 * 
+	 * The criterion is one of "slope", "total", "mean" or "significance", the latter being the slope divided by its 
+	 * standard error; higher values rank first. Data whose criterion is not defined, e.g. the slope of a single 
+	 * year, are left out.
+	 * 
+	 * @param indicatorString a String with the name of the indicator to rank; null to rank every indicator but TOTAL
+	 * @param criterion a String with the name of the criterion
+	 * @param k an Integer with the maximum number of results
+	 * @return a List<IMeasurementVector> with the best results, from the best to the worst
+	 * @throws IllegalArgumentException if the criterion is unknown or k is not positive
+	 */
+	List<IMeasurementVector> findTopRanked(String indicatorString, String criterion, int k) throws IllegalArgumentException;
+
+	/**
+	 * Ranks the loaded data by a trend criterion computed over a range of years and returns the k best of them
+	 * 
+	 * For example, the 20 countries with the steepest increasing Flood trend since 2000 are
+	 * findTopRankedYearRange("Flood", "slope", 20, 2000, 2022).
+	 * 
+	 * @param indicatorString a String with the name of the indicator to rank; null to rank every indicator but TOTAL
+	 * @param criterion a String with the name of the criterion, see {@link #findTopRanked(String, String, int)}
+	 * @param k an Integer with the maximum number of results
+	 * @param startYear an Integer with the start year
+	 * @param endYear an Integer with the end year
+	 * @return a List<IMeasurementVector> with the best results restricted to the range, from the best to the worst
+	 * @throws IllegalArgumentException if the criterion is unknown, k is not positive or startYear is greater than endYear
+	 */
+	List<IMeasurementVector> findTopRankedYearRange(String indicatorString, String criterion, int k, int startYear,
+			int endYear) throws IllegalArgumentException;
+
 	/**
 	 * A set of strings with all the request names made so far to the server
 	 * 
 	 * We use the term find* requests to refer to all the requests that dig up ISingleMeasureRequest from the loaded collection.
 	 * The server is obliged to keep track of every find* request, and be able to return the names of these requests
 	 * 
-	 * @return A set of strings with all the request names made so far to the server
+	 * @return A set of strings with all the request names made so far to the server; a read-only view that follows new requests
 	 */
 	Set<String> getAllRequestNames();
 
 	/**
 	 * Asks the server to find a specific request and return it as an ISingleMeasureRequest
+	 * 
+	 * When several answered requests share a name, the latest one is returned.
+	 * 
 	 * @param requestName A String with the request name
 	 * @return an ISingleMeasureRequest object with the retrieved request's data; or null if the request does not exist
 	 * @see dom2app.ISingleMeasureRequest
@@ -102,4 +186,15 @@ public interface IMainController {
 	 */
 	int reportToFile(String outputFilePath, String requestName, String reportType) throws IOException;
 
-}
\ No newline at end of file
+	/**
+	 * Writes everything loaded so far to a binary snapshot file
+	 * 
+	 * A snapshot can be passed to {@link #load(String, String)} instead of a text file; it is recognized by its 
+	 * first bytes and loads much faster than the text it was created from.
+	 * 
+	 * @param outputFilePath A String with the path of the snapshot file
+	 * @throws IOException if sth goes wrong during the writing of the snapshot file
+	 */
+	void saveSnapshot(String outputFilePath) throws IOException;
+
+}
\ No newline at end of file
@@ -5,9 +5,10 @@ public class IMainControllerFactory {
 	/**
 	 * Regulates which of all the possible implementations of IMainController to use
 	 * 
-	 * For the moment there is only one. 
+	 * DEFAULT serves a single client; CONCURRENT can be shared by many threads; BOUNDED can be shared by many 
+	 * threads and retains the answers of its requests according to {@link RetentionPolicy#DEFAULT}.
 	 */
-	public enum ControllerTypeEnum{DEFAULT}; //to add more options if new versions appear
+	public enum ControllerTypeEnum{DEFAULT, CONCURRENT, BOUNDED}; //to add more options if new versions appear
 	
 	
 	/**
@@ -19,6 +20,21 @@ public class IMainControllerFactory {
 	public IMainController createMainController(ControllerTypeEnum controllerType) {
 		if (controllerType == ControllerTypeEnum.DEFAULT)
 			return new MainController();
+		if (controllerType == ControllerTypeEnum.CONCURRENT)
+			return new MainController(new ConcurrentRequestRegistry());
+		if (controllerType == ControllerTypeEnum.BOUNDED)
+			return createMainController(RetentionPolicy.DEFAULT);
 		throw new AssertionError("This code is supposed to be unreachable");
 	}
+	
+	
+	/**
+	 * Returns a new thread-safe IMainController that retains the answers of its requests according to a policy
+	 * 
+	 * @param policy the limits of the retained answers
+	 * @return  a concrete object which is an implementation of IMainController
+	 */
+	public IMainController createMainController(RetentionPolicy policy) {
+		return new MainController(new BoundedRequestRegistry(policy));
+	}
 }
@@ -0,0 +1,53 @@
+package engine;
+
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import dom2app.ISingleMeasureRequest;
+
+
+/**
+ * A registry that indexes the requests by name
+ * <p>
+ * Registrations and lookups take constant time and the set of names is a live view of the index, so none of
+ * them depends on the number of requests issued so far. A request replaces an earlier request with the same
+ * name; the names keep the order in which they were first registered. Every request is retained. It is not
+ * thread-safe.
+ */
+final class IndexedRequestRegistry implements RequestRegistry {
+    final private LinkedHashMap<String, ISingleMeasureRequest> requests = new LinkedHashMap<>();
+    private long hits = 0;
+    private long retainedObservations = 0;
+    private long retainedBytes = 0;
+
+    @Override
+    public void register(final ISingleMeasureRequest request, final Supplier<ISingleMeasureRequest> recompute) {
+        final ISingleMeasureRequest replaced = requests.put(request.getRequestName(), request);
+        if (replaced != null) {
+            retainedObservations -= RequestStoreMetrics.observationsOf(replaced);
+            retainedBytes -= RequestStoreMetrics.bytesOf(replaced);
+        }
+        retainedObservations += RequestStoreMetrics.observationsOf(request);
+        retainedBytes += RequestStoreMetrics.bytesOf(request);
+    }
+
+    @Override
+    public ISingleMeasureRequest get(final String requestName) {
+        final ISingleMeasureRequest request = requests.get(requestName);
+        if (request != null) hits += 1;
+        return request;
+    }
+
+    @Override
+    public Set<String> names() {
+        return Collections.unmodifiableSet(requests.keySet());
+    }
+
+    @Override
+    public RequestStoreMetrics metrics() {
+        return new RequestStoreMetrics(hits, 0, 0, 0, requests.size(), retainedObservations, retainedBytes);
+    }
+}
@@ -9,53 +9,125 @@ import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 import dom2app.IMeasurementVector;
 import dom2app.ISingleMeasureRequest;
 
+import server.analysis.AnalyticsTable;
+import server.analysis.RankingCriterion;
+
 import server.commons.NaturalDisaster;
 
 import server.parsing.ParserFactory;
 import server.parsing.IParser;
 
+import server.database.CacheStatistics;
 import server.database.IDatabase;
+import server.database.IDatabase.Change;
 import server.database.DatabaseFactory;
 import server.database.DatabaseFactory.DatabaseType;
+import server.database.Snapshot;
 
 import server.reporting.IReportWriter;
 import server.reporting.ReportWriterFactory;
 
 
+/**
+ * The main controller
+ * <p>
+ * The loaded data live in a database version that is never modified once it is published. A load or a reload 
+ * fills a copy of the current version and publishes it with a single atomic swap, so requests never block on an 
+ * ingestion, e.g. one started by a {@code DirectoryWatcher}, and never see a half-loaded file; a file that fails 
+ * to load leaves the current version untouched. Loads and reloads are serialized among themselves.
+ * <p>
+ * The answered requests are kept in a {@code RequestRegistry}; with a thread-safe registry the controller can
+ * serve many clients at once, see {@link IMainControllerFactory.ControllerTypeEnum#CONCURRENT}, and with a bounded
+ * registry it keeps the memory of a long-running session bounded, see {@link RetentionPolicy}.
+ */
 final public class MainController implements IMainController {
-    final private IDatabase database = DatabaseFactory.create(DatabaseType.SimpleDatabase);
-    final private List<ISingleMeasureRequest> requests = new ArrayList<>();
+    final private AtomicReference<IDatabase> database = new AtomicReference<>(DatabaseFactory.create(DatabaseType.SimpleDatabase));
+    final private Object ingestionLock = new Object();
+    final private RequestRegistry requests;
+
+    /**
+     * Constructs a controller for a single client
+     */
+    public MainController() {
+        this(new IndexedRequestRegistry());
+    }
+
+    /**
+     * Constructs a controller that keeps its requests in the given registry
+     * @param requests  the registry of the answered requests
+     */
+    MainController(final RequestRegistry requests) {
+        this.requests = requests;
+    }
     
     @Override
     public List<IMeasurementVector> load(final String fileName, final String delimiter) throws FileNotFoundException, IOException {
-        final IParser parser = ParserFactory.createCustomDelimitedTxtParser(delimiter);
-        final Path filePath = Paths.get(fileName);
-
-        final List<NaturalDisaster> disasters = parser.parse(filePath, 1, 1980);
-        
         final List<IMeasurementVector> result = new ArrayList<>();
 
-        disasters.forEach(disaster -> {
-            result.add(disaster);
-            database.add(disaster);
-        });
+        synchronized (ingestionLock) {
+            final IDatabase next = database.get().copy();
+            read(fileName, delimiter, disaster -> {
+                next.add(disaster);
+                result.add(disaster);
+            });
+            database.set(next);
+        }
 
         return result;
     }
 
+    @Override
+    public List<IMeasurementVector> reload(final String fileName, final String delimiter) throws FileNotFoundException, IOException {
+        final List<IMeasurementVector> changes = new ArrayList<>();
+
+        synchronized (ingestionLock) {
+            final IDatabase next = database.get().copy();
+            read(fileName, delimiter, disaster -> {
+                if (next.upsert(disaster) != Change.UNCHANGED) changes.add(disaster);
+            });
+            if (!changes.isEmpty()) database.set(next);
+        }
+
+        return changes;
+    }
+
+    /**
+     * Reads the rows of a text file or of a snapshot, recognized by its first bytes, and hands them to a consumer
+     * @param fileName      the path of the file
+     * @param delimiter     the delimiter of the fields of a text file
+     * @param consumer      receives the rows in file order
+     * @throws IOException  if the file is missing or malformed
+     */
+    final private static void read(
+        final String fileName, 
+        final String delimiter, 
+        final Consumer<NaturalDisaster> consumer
+    ) throws IOException {
+        final Path filePath = Paths.get(fileName);
+
+        if (Snapshot.isSnapshot(filePath)) {
+            Snapshot.read(filePath, consumer);
+        } else {
+            final IParser parser = ParserFactory.createParallelDelimitedTxtParser(delimiter);
+            parser.parse(filePath, 1, 1980, consumer);
+        }
+    }
+
     @Override
     public ISingleMeasureRequest findSingleCountryIndicator(
         final String requestName, 
         final String countryName, 
         final String indicatorString
     ) throws IllegalArgumentException {
-        ISingleMeasureRequest request = database.request(requestName, countryName, indicatorString);
-        if (request.isAnsweredFlag()) requests.add(request);
+        ISingleMeasureRequest request = database.get().request(requestName, countryName, indicatorString);
+        if (request.isAnsweredFlag())
+            requests.register(request, () -> database.get().request(requestName, countryName, indicatorString));
         return request;
     }
 
@@ -67,35 +139,86 @@ final public class MainController implements IMainController {
         final int startYear, 
         final int endYear
     ) throws IllegalArgumentException {
-        ISingleMeasureRequest request = database.request(requestName, countryName, indicatorString, startYear, endYear);
-        if (request.isAnsweredFlag()) requests.add(request);
+        ISingleMeasureRequest request = database.get().request(requestName, countryName, indicatorString, startYear, endYear);
+        if (request.isAnsweredFlag()) requests.register(
+            request, 
+            () -> database.get().request(requestName, countryName, indicatorString, startYear, endYear)
+        );
         return request;
     }
 
+    @Override
+    public ISingleMeasureRequest findBucketedCountryIndicator(
+        final String requestName, 
+        final String countryName, 
+        final String indicatorString, 
+        final int bucketYears
+    ) throws IllegalArgumentException {
+        ISingleMeasureRequest request = database.get().requestBuckets(requestName, countryName, indicatorString, bucketYears);
+        if (request.isAnsweredFlag()) requests.register(
+            request, 
+            () -> database.get().requestBuckets(requestName, countryName, indicatorString, bucketYears)
+        );
+        return request;
+    }
+
+    @Override
+    public ISingleMeasureRequest findRollingCountryIndicator(
+        final String requestName, 
+        final String countryName, 
+        final String indicatorString, 
+        final int windowYears
+    ) throws IllegalArgumentException {
+        ISingleMeasureRequest request = database.get().requestRollingSums(requestName, countryName, indicatorString, windowYears);
+        if (request.isAnsweredFlag()) requests.register(
+            request, 
+            () -> database.get().requestRollingSums(requestName, countryName, indicatorString, windowYears)
+        );
+        return request;
+    }
+
+    @Override
+    public List<IMeasurementVector> findTopRanked(
+        final String indicatorString, 
+        final String criterion, 
+        final int k
+    ) throws IllegalArgumentException {
+        return findTopRankedYearRange(indicatorString, criterion, k, Integer.MIN_VALUE, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<IMeasurementVector> findTopRankedYearRange(
+        final String indicatorString, 
+        final String criterion, 
+        final int k, 
+        final int startYear, 
+        final int endYear
+    ) throws IllegalArgumentException {
+        final RankingCriterion ranking = RankingCriterion.forName(criterion).orElseThrow(
+            () -> new IllegalArgumentException("Unknown ranking criterion: " + criterion)
+        );
+        return new ArrayList<>(database.get().topRanked(indicatorString, ranking, k, startYear, endYear));
+    }
+
     @Override
     public Set<String> getAllRequestNames() {
-        return requests.stream()
-                       .map(req->req.getRequestName())
-                       .collect(Collectors.toSet());
+        return requests.names();
     }
 
     @Override
     public ISingleMeasureRequest getRequestByName(final String requestName) {
-        return requests.stream()
-                       .filter(req->requestName==req.getRequestName())
-                       .findFirst()
-                       .get(); // every request in the list is guaranteed to be non-empty
+        return requests.get(requestName);
     }
 
     @Override
     public ISingleMeasureRequest getDescriptiveStats(String requestName) {
-        // the answer of the request has its stats created when it's created
+        // the answer of the request computes and caches its analytics on first use
         return getRequestByName(requestName); 
     }
 
     @Override
     public ISingleMeasureRequest getRegression(String requestName) {
-        // the answer of the request has its stats created when it's created
+        // the answer of the request computes and caches its analytics on first use
         return getRequestByName(requestName);
     }
 
@@ -106,4 +229,36 @@ final public class MainController implements IMainController {
         final Path filePath = Paths.get(outputFilePath);
         return writer.write(filePath);
     }
+
+    /**
+     * Returns the current counters of the store of the answered requests
+     * @return the current counters of the store of the answered requests
+     */
+    public RequestStoreMetrics getRequestStoreMetrics() {
+        return requests.metrics();
+    }
+
+    /**
+     * Computes the statistics and the regression of every loaded row over a year window, in one batch
+     * @param startYear     the first year of the window
+     * @param endYear       the last year of the window
+     * @return              a table of all the loaded rows that can be sorted and filtered
+     * @throws IllegalArgumentException if the startYear is greater than the endYear
+     */
+    public AnalyticsTable<NaturalDisaster> getAnalyticsTable(final int startYear, final int endYear) throws IllegalArgumentException {
+        return database.get().analyticsTable(startYear, endYear);
+    }
+
+    /**
+     * Returns the current counters of the cache that serves repeated year-range requests
+     * @return the current counters of the cache that serves repeated year-range requests
+     */
+    public CacheStatistics getQueryCacheStatistics() {
+        return database.get().cacheStatistics();
+    }
+
+    @Override
+    public void saveSnapshot(final String outputFilePath) throws IOException {
+        Snapshot.write(database.get().entries(), Paths.get(outputFilePath));
+    }
 }
@@ -0,0 +1,42 @@
+package engine;
+
+
+import java.util.Set;
+import java.util.function.Supplier;
+
+import dom2app.ISingleMeasureRequest;
+
+
+/**
+ * Keeps track of the answered requests of a controller, by name
+ * <p>
+ * A request replaces an earlier request with the same name.
+ */
+interface RequestRegistry {
+    /**
+     * Registers an answered request
+     * @param request   the request
+     * @param recompute answers the request again, from its parameters, against the current data; a registry may
+     *                  use it instead of retaining the request
+     */
+    public void register(final ISingleMeasureRequest request, final Supplier<ISingleMeasureRequest> recompute);
+
+    /**
+     * Returns a registered request
+     * @param requestName   the name of the request
+     * @return              the request; null if there is no request with that name
+     */
+    public ISingleMeasureRequest get(final String requestName);
+
+    /**
+     * Returns the names of all the registered requests
+     * @return a read-only, live view of the names of all the registered requests
+     */
+    public Set<String> names();
+
+    /**
+     * Returns the current counters of the registry
+     * @return the current counters of the registry
+     */
+    public RequestStoreMetrics metrics();
+}
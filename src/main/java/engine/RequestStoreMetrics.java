@@ -0,0 +1,137 @@
+package engine;
+
+
+import dom2app.IMeasurementVector;
+import dom2app.ISingleMeasureRequest;
+
+import server.commons.NaturalDisaster;
+
+
+/**
+ * An immutable snapshot of the counters of a request store
+ * <p>
+ * The retained bytes are an estimate: a fixed overhead per answer plus the compressed size of its measurements,
+ * see {@code TimeSeries.sizeInBytes()}. Filtered answers share their storage with the loaded rows, so the estimate 
+ * is an upper bound of what evicting them would free.
+ */
+final public class RequestStoreMetrics {
+    final static long BYTES_PER_REQUEST     = 256;
+    // the size of the measurements of an answer that is not backed by a TimeSeries: two ints per observation
+    final static long BYTES_PER_OBSERVATION = 8;
+
+    final private long hits;
+    final private long recomputations;
+    final private long evictions;
+    final private long expirations;
+    final private int retainedRequests;
+    final private long retainedObservations;
+    final private long retainedMeasurementBytes;
+
+    RequestStoreMetrics(
+        final long hits, 
+        final long recomputations, 
+        final long evictions, 
+        final long expirations, 
+        final int retainedRequests, 
+        final long retainedObservations,
+        final long retainedMeasurementBytes
+    ) {
+        this.hits = hits;
+        this.recomputations = recomputations;
+        this.evictions = evictions;
+        this.expirations = expirations;
+        this.retainedRequests = retainedRequests;
+        this.retainedObservations = retainedObservations;
+        this.retainedMeasurementBytes = retainedMeasurementBytes;
+    }
+
+    /**
+     * Returns the number of observations of the answer of a request
+     * @param request   a request
+     * @return          the number of its observations; 0 if it is not answered
+     */
+    final static int observationsOf(final ISingleMeasureRequest request) {
+        if (!request.isAnsweredFlag()) return 0;
+
+        final IMeasurementVector answer = request.getAnswer();
+        if (answer instanceof NaturalDisaster) return ((NaturalDisaster) answer).getTimeSeries().size();
+        return answer.getMeasurements().size();
+    }
+
+    /**
+     * Returns the estimated number of bytes of the measurements of the answer of a request
+     * @param request   a request
+     * @return          the estimated number of bytes of its measurements; 0 if it is not answered
+     */
+    final static long bytesOf(final ISingleMeasureRequest request) {
+        if (!request.isAnsweredFlag()) return 0;
+
+        final IMeasurementVector answer = request.getAnswer();
+        if (answer instanceof NaturalDisaster) return ((NaturalDisaster) answer).getTimeSeries().sizeInBytes();
+        return answer.getMeasurements().size() * BYTES_PER_OBSERVATION;
+    }
+
+    /**
+     * Returns the number of lookups that were served by a retained answer
+     * @return the number of hits
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of lookups that had to recompute an evicted or expired answer
+     * @return the number of recomputations
+     */
+    public long getRecomputations() {
+        return recomputations;
+    }
+
+    /**
+     * Returns the number of answers evicted to respect the size limits
+     * @return the number of evictions
+     */
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Returns the number of answers dropped because they were idle for too long
+     * @return the number of expirations
+     */
+    public long getExpirations() {
+        return expirations;
+    }
+
+    /**
+     * Returns the number of requests whose answers are retained
+     * @return the number of retained requests
+     */
+    public int getRetainedRequests() {
+        return retainedRequests;
+    }
+
+    /**
+     * Returns the number of observations of the retained answers
+     * @return the number of retained observations
+     */
+    public long getRetainedObservations() {
+        return retainedObservations;
+    }
+
+    /**
+     * Returns the estimated number of bytes held by the retained requests and their answers
+     * @return the estimated number of retained bytes
+     */
+    public long getEstimatedRetainedBytes() {
+        return retainedRequests * BYTES_PER_REQUEST + retainedMeasurementBytes;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+            "hits=%d, recomputations=%d, evictions=%d, expirations=%d, retained requests=%d, retained observations=%d, retained bytes~%d",
+            hits, recomputations, evictions, expirations, retainedRequests, retainedObservations, getEstimatedRetainedBytes()
+        );
+    }
+}
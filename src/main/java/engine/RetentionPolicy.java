@@ -0,0 +1,53 @@
+package engine;
+
+
+import java.time.Duration;
+
+
+/**
+ * The limits of a bounded request store
+ * <p>
+ * A store keeps the parameters of every request, which are small, but only a bounded number of answers: at most
+ * {@code maxRequests} answers holding at most {@code maxObservations} (year, value) observations in total, each
+ * kept for at most {@code timeToIdle} since it was last used. The least recently used answers are evicted first
+ * and an evicted answer is recomputed from the parameters of its request when it is needed again.
+ */
+final public class RetentionPolicy {
+    /**
+     * The policy of {@link IMainControllerFactory.ControllerTypeEnum#BOUNDED} controllers
+     */
+    final public static RetentionPolicy DEFAULT = new RetentionPolicy(10_000, 1_000_000, Duration.ofHours(1));
+
+    final private int maxRequests;
+    final private long maxObservations;
+    final private Duration timeToIdle;
+
+    /**
+     * Constructs a retention policy
+     * @param maxRequests       the maximum number of retained answers
+     * @param maxObservations   the maximum number of observations of all the retained answers; an answer that is 
+     *                          larger on its own is still retained until the next request
+     * @param timeToIdle        how long an answer is retained after its last use
+     * @throws IllegalArgumentException if a limit is not positive
+     */
+    public RetentionPolicy(final int maxRequests, final long maxObservations, final Duration timeToIdle) throws IllegalArgumentException {
+        if (maxRequests <= 0 || maxObservations <= 0 || timeToIdle.isNegative() || timeToIdle.isZero()) 
+            throw new IllegalArgumentException("The limits of a retention policy must be positive");
+
+        this.maxRequests = maxRequests;
+        this.maxObservations = maxObservations;
+        this.timeToIdle = timeToIdle;
+    }
+
+    public int getMaxRequests() {
+        return maxRequests;
+    }
+
+    public long getMaxObservations() {
+        return maxObservations;
+    }
+
+    public Duration getTimeToIdle() {
+        return timeToIdle;
+    }
+}
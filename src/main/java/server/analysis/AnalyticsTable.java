@@ -0,0 +1,246 @@
+package server.analysis;
+
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.DoublePredicate;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+import server.commons.TimeSeries;
+
+
+/**
+ * An immutable, columnar table of the statistics and the regression of many rows, computed in one batch
+ * <p>
+ * The (year, value) pairs of all the rows are first flattened into two primitive arrays, with one offset per row;
+ * every row is then reduced by two tight loops over its slice, without any engine object or virtual call per
+ * value, and its results are written to one primitive array per {@link Column}. The rows are independent, so
+ * large tables are computed in parallel on the common fork-join pool.
+ * <p>
+ * The moments are computed with centered two-pass sums, so they agree with {@code StatisticsEngine} and
+ * {@code RegressionEngine} up to rounding. A table can be sorted and filtered by any column; both return a new 
+ * table and leave this one untouched.
+ *
+ * @param <R>   the type of the rows, e.g. {@code NaturalDisaster}
+ */
+final public class AnalyticsTable<R> {
+    final private static int PARALLEL_THRESHOLD = 1 << 12;
+
+    /**
+     * The columns of a table
+     */
+    public enum Column {
+        /** the number of observations */
+        COUNT, 
+        /** the sum of the values */
+        TOTAL, 
+        /** the mean of the values */
+        MEAN, 
+        /** the bias-corrected sample variance of the values */
+        VARIANCE, 
+        /** the slope of the least-squares line of the values over the years */
+        SLOPE, 
+        /** the intercept of the least-squares line */
+        INTERCEPT, 
+        /** the standard error of the slope */
+        SLOPE_ERROR
+    }
+
+    final private List<R> rows;
+    final private double[][] columns;
+
+    /**
+     * Constructs a table; the arrays are owned by the table from now on
+     */
+    private AnalyticsTable(final List<R> rows, final double[][] columns) {
+        this.rows = rows;
+        this.columns = columns;
+    }
+
+    /**
+     * Computes the table of some rows over all their years
+     * @param rows      the rows
+     * @param series    extracts the series of a row
+     * @return          the table, with the rows in the given order
+     */
+    public static <R> AnalyticsTable<R> compute(final List<R> rows, final Function<? super R, TimeSeries> series) {
+        return compute(rows, series, Integer.MIN_VALUE, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Computes the table of some rows over a year window
+     * @param rows      the rows
+     * @param series    extracts the series of a row
+     * @param startYear the first year of the window
+     * @param endYear   the last year of the window
+     * @return          the table, with the rows in the given order
+     * @throws IllegalArgumentException if the startYear is greater than the endYear
+     */
+    public static <R> AnalyticsTable<R> compute(
+        final List<R> rows, 
+        final Function<? super R, TimeSeries> series, 
+        final int startYear, 
+        final int endYear
+    ) throws IllegalArgumentException {
+        if (startYear > endYear) throw new IllegalArgumentException("startYear must be smaller than endYear");
+
+        final int size = rows.size();
+
+        // flatten the pairs of the window into columnar arrays
+        final TimeSeries[] allSeries = new TimeSeries[size];
+        int capacity = 0;
+        for (int row = 0; row < size; row++) {
+            allSeries[row] = series.apply(rows.get(row));
+            capacity += allSeries[row].size();
+        }
+
+        final int[] offsets = new int[size+1];
+        final int[] years   = new int[capacity];
+        final int[] values  = new int[capacity];
+        final int[] next    = {0};
+        for (int row = 0; row < size; row++) {
+            allSeries[row].forEach((year, value) -> {
+                if (year < startYear || year > endYear) return;
+                years[next[0]]  = year;
+                values[next[0]] = value;
+                next[0] += 1;
+            });
+            offsets[row+1] = next[0];
+        }
+
+        final double[][] columns = new double[Column.values().length][size];
+        final IntStream indices = IntStream.range(0, size);
+        (size < PARALLEL_THRESHOLD ? indices : indices.parallel())
+            .forEach(row -> reduce(years, values, offsets[row], offsets[row+1], columns, row));
+
+        return new AnalyticsTable<>(Collections.unmodifiableList(new ArrayList<>(rows)), columns);
+    }
+
+    /**
+     * Computes the columns of the row whose pairs are in [from, to) of the flattened arrays
+     */
+    final private static void reduce(
+        final int[] years, 
+        final int[] values, 
+        final int from, 
+        final int to, 
+        final double[][] columns, 
+        final int row
+    ) {
+        final int n = to - from;
+
+        long sumOfYears = 0;
+        long sumOfValues = 0;
+        for (int i = from; i < to; i++) {
+            sumOfYears  += years[i];
+            sumOfValues += values[i];
+        }
+
+        final double meanYear  = (double) sumOfYears / n;
+        final double meanValue = (double) sumOfValues / n;
+
+        double deviations = 0.0;
+        double sxx = 0.0;
+        double sxy = 0.0;
+        double syy = 0.0;
+        for (int i = from; i < to; i++) {
+            final double dx = years[i] - meanYear;
+            final double dy = values[i] - meanValue;
+            deviations += dy;
+            sxx += dx * dx;
+            sxy += dx * dy;
+            syy += dy * dy;
+        }
+
+        final double slope = n < 2 ? Double.NaN : sxy / sxx;
+        final double squaredErrors = Math.max(0.0, syy - sxy * sxy / sxx);
+
+        columns[Column.COUNT.ordinal()][row]       = n;
+        columns[Column.TOTAL.ordinal()][row]       = sumOfValues;
+        columns[Column.MEAN.ordinal()][row]        = n == 0 ? Double.NaN : meanValue;
+        columns[Column.VARIANCE.ordinal()][row]    = n == 0 ? Double.NaN : n == 1 ? 0.0 : (syy - deviations * deviations / n) / (n - 1);
+        columns[Column.SLOPE.ordinal()][row]       = slope;
+        columns[Column.INTERCEPT.ordinal()][row]   = n < 2 ? Double.NaN : meanValue - slope * meanYear;
+        columns[Column.SLOPE_ERROR.ordinal()][row] = n < 3 ? Double.NaN : Math.sqrt(squaredErrors / (n - 2) / sxx);
+    }
+
+    /**
+     * Returns the number of rows of the table
+     */
+    public int size() {
+        return rows.size();
+    }
+
+    /**
+     * Returns a row of the table
+     * @param index     the index of the row
+     * @return          the row
+     */
+    public R getRow(final int index) {
+        return rows.get(index);
+    }
+
+    /**
+     * Returns the rows of the table
+     * @return a read-only list of the rows, in the order of the table
+     */
+    public List<R> getRows() {
+        return rows;
+    }
+
+    /**
+     * Returns a cell of the table
+     * @param index     the index of the row
+     * @param column    the column
+     * @return          the value of the column for the row; NaN if it is not defined, e.g. the slope of a single year
+     */
+    public double get(final int index, final Column column) {
+        return columns[column.ordinal()][index];
+    }
+
+    /**
+     * Returns a copy of the table sorted by a column; NaN values come last, ties keep their order
+     * @param column        the column to sort by
+     * @param descending    whether the largest values come first
+     * @return              the sorted table
+     */
+    public AnalyticsTable<R> sortedBy(final Column column, final boolean descending) {
+        final double[] keys = columns[column.ordinal()];
+        final int[] order = IntStream.range(0, size()).boxed()
+            .sorted((a, b) -> {
+                if (Double.isNaN(keys[a]) || Double.isNaN(keys[b])) 
+                    return Boolean.compare(Double.isNaN(keys[a]), Double.isNaN(keys[b]));
+                return descending ? Double.compare(keys[b], keys[a]) : Double.compare(keys[a], keys[b]);
+            })
+            .mapToInt(Integer::intValue)
+            .toArray();
+        return select(order);
+    }
+
+    /**
+     * Returns a copy of the table with the rows whose value of a column passes a test, in the same order
+     * @param column    the column to test
+     * @param predicate the test; NaN values are tested too
+     * @return          the filtered table
+     */
+    public AnalyticsTable<R> filter(final Column column, final DoublePredicate predicate) {
+        final double[] keys = columns[column.ordinal()];
+        return select(IntStream.range(0, size()).filter(index -> predicate.test(keys[index])).toArray());
+    }
+
+    /**
+     * Returns a copy of the table with the given rows, in the given order
+     */
+    final private AnalyticsTable<R> select(final int[] order) {
+        final List<R> selectedRows = new ArrayList<>(order.length);
+        for (final int index : order) selectedRows.add(rows.get(index));
+
+        final double[][] selectedColumns = new double[columns.length][order.length];
+        for (int column = 0; column < columns.length; column++)
+            for (int i = 0; i < order.length; i++) selectedColumns[column][i] = columns[column][order[i]];
+
+        return new AnalyticsTable<>(Collections.unmodifiableList(selectedRows), selectedColumns);
+    }
+}
@@ -0,0 +1,99 @@
+package server.analysis;
+
+
+import server.commons.TimeSeries;
+
+
+/**
+ * A prefix-sum index over the dense year axis of a {@code TimeSeries}
+ * <p>
+ * For every year from the first to the last one of the timeSeries the index keeps the running number of 
+ * observations, of non-zero observations, and the running sums of the values, of their squares, of the years, of
+ * their squares and of the products of the years and the values. The statistics of any year window are then the 
+ * differences of two prefixes: they are computed in constant time, without filtering or copying the timeSeries.
+ * Missing years are absent observations, not zeros, exactly as in a filtered timeSeries.
+ * <p>
+ * The years are stored relative to the first year so that the sums of their powers stay small. All the sums of a
+ * yearly series of counts are exact in a {@code double}.
+ */
+final public class RangeIndex {
+    final private int firstYear;
+    final private int[] observations;
+    final private int[] nonZero;
+    final private double[] sums;
+    final private double[] sumsOfSquares;
+    final private double[] sumsOfYears;
+    final private double[] sumsOfSquaredYears;
+    final private double[] sumsOfProducts;
+
+    /**
+     * Constructs the index of a timeSeries
+     * @param timeSeries    a timeSeries
+     */
+    public RangeIndex(final TimeSeries timeSeries) {
+        final int n = timeSeries.size();
+
+        firstYear          = n == 0 ? 0 : timeSeries.yearAt(0);
+        final int span     = n == 0 ? 0 : timeSeries.yearAt(n-1) - firstYear + 1;
+        observations       = new int[span+1];
+        nonZero            = new int[span+1];
+        sums               = new double[span+1];
+        sumsOfSquares      = new double[span+1];
+        sumsOfYears        = new double[span+1];
+        sumsOfSquaredYears = new double[span+1];
+        sumsOfProducts     = new double[span+1];
+
+        // scatter the observations at their years, then accumulate the prefixes
+        timeSeries.forEach((year, count) -> {
+            final int i = year - firstYear;
+            final double value = count;
+            observations[i+1]       = 1;
+            nonZero[i+1]            = count != 0 ? 1 : 0;
+            sums[i+1]               = value;
+            sumsOfSquares[i+1]      = value * value;
+            sumsOfYears[i+1]        = i;
+            sumsOfSquaredYears[i+1] = (double) i * i;
+            sumsOfProducts[i+1]     = i * value;
+        });
+
+        for (int i = 1; i <= span; i++) {
+            observations[i]       += observations[i-1];
+            nonZero[i]            += nonZero[i-1];
+            sums[i]               += sums[i-1];
+            sumsOfSquares[i]      += sumsOfSquares[i-1];
+            sumsOfYears[i]        += sumsOfYears[i-1];
+            sumsOfSquaredYears[i] += sumsOfSquaredYears[i-1];
+            sumsOfProducts[i]     += sumsOfProducts[i-1];
+        }
+    }
+
+    /**
+     * Returns the statistics of the observations in the inclusive year window [startYear, endYear]
+     * @param startYear     the start year
+     * @param endYear       the end year
+     * @return              the statistics of the window; a window without observations has a count of zero
+     * @throws IllegalArgumentException if the startYear is greater than the endYear
+     */
+    public RangeStatistics statistics(final int startYear, final int endYear) throws IllegalArgumentException {
+        if (startYear > endYear) throw new IllegalArgumentException("startYear must be smaller than endYear");
+
+        final int span = observations.length - 1;
+        final int from = (int) Math.max(0, Math.min(span, (long) startYear - firstYear));
+        final int to   = (int) Math.max(0, Math.min(span, (long) endYear - firstYear + 1));
+
+        if (from >= to) return new RangeStatistics(startYear, endYear, 0, 0, 0, 0, 0, 0, 0, firstYear);
+
+        return new RangeStatistics(
+            startYear,
+            endYear,
+            observations[to] - observations[from],
+            nonZero[to] - nonZero[from],
+            sums[to] - sums[from],
+            sumsOfSquares[to] - sumsOfSquares[from],
+            sumsOfYears[to] - sumsOfYears[from],
+            sumsOfSquaredYears[to] - sumsOfSquaredYears[from],
+            sumsOfProducts[to] - sumsOfProducts[from],
+            firstYear
+        );
+    }
+}
@@ -0,0 +1,165 @@
+package server.analysis;
+
+
+import java.math.BigInteger;
+
+
+/**
+ * The immutable statistics of the observations of a year window, as computed by a {@code RangeIndex}
+ * <p>
+ * The variance is the bias-corrected sample variance, as in {@code StatisticsEngine}, and the slope and the 
+ * intercept are those of the least-squares line of the values over the years, as in {@code RegressionEngine}; 
+ * they are NaN when there are too few observations to define them.
+ */
+final public class RangeStatistics {
+    /** the largest magnitude up to which a {@code double} holds every integer */
+    final private static double EXACT_LIMIT = 0x1p53;
+
+    final private int startYear;
+    final private int endYear;
+    final private long count;
+    final private long nonZeroCount;
+    final private double total;
+    final private double sumOfSquares;
+    final private double sumOfYears;
+    final private double sumOfSquaredYears;
+    final private double sumOfProducts;
+    final private int yearOrigin;
+
+    /**
+     * Constructs the statistics of a window from its sums; the years of the sums are relative to an origin
+     */
+    RangeStatistics(
+        final int startYear,
+        final int endYear,
+        final long count,
+        final long nonZeroCount,
+        final double total,
+        final double sumOfSquares,
+        final double sumOfYears,
+        final double sumOfSquaredYears,
+        final double sumOfProducts,
+        final int yearOrigin
+    ) {
+        this.startYear = startYear;
+        this.endYear = endYear;
+        this.count = count;
+        this.nonZeroCount = nonZeroCount;
+        this.total = total;
+        this.sumOfSquares = sumOfSquares;
+        this.sumOfYears = sumOfYears;
+        this.sumOfSquaredYears = sumOfSquaredYears;
+        this.sumOfProducts = sumOfProducts;
+        this.yearOrigin = yearOrigin;
+    }
+
+    public int getStartYear() {
+        return startYear;
+    }
+
+    public int getEndYear() {
+        return endYear;
+    }
+
+    /**
+     * Returns the number of years of the window that have an observation
+     */
+    public long getNumberOfValues() {
+        return count;
+    }
+
+    /**
+     * Returns the number of years of the window with a non-zero observation
+     */
+    public long getNumberOfNonZeroValues() {
+        return nonZeroCount;
+    }
+
+    public double getTotalOccurences() {
+        return total;
+    }
+
+    public double getMean() {
+        return count == 0 ? Double.NaN : total / count;
+    }
+
+    public double getVariance() {
+        if (count == 0) return Double.NaN;
+        if (count == 1) return 0.0;
+        return (count * sumOfSquares - total * total) / ((double) count * (count - 1));
+    }
+
+    public double getStandardDeviation() {
+        return Math.sqrt(getVariance());
+    }
+
+    public double getRegressingSlope() {
+        if (count < 2) return Double.NaN;
+        final double spread = count * sumOfSquaredYears - sumOfYears * sumOfYears;
+        return (count * sumOfProducts - sumOfYears * total) / spread;
+    }
+
+    public double getRegressionIntercept() {
+        final double slope = getRegressingSlope();
+        return (total - slope * sumOfYears) / count - slope * yearOrigin;
+    }
+
+    /**
+     * Returns the standard error of the slope of the least-squares line, as {@code SimpleRegression} defines it
+     * <p>
+     * When the sums are integers that a {@code double} holds exactly, as they are for yearly counts, the residuals
+     * are computed in exact integer arithmetic: the error is then zero exactly when the values lie on a line, 
+     * whereas {@code SimpleRegression} may report rounding noise instead. Otherwise the residuals are computed 
+     * from the centered sums the way {@code SimpleRegression} computes them.
+     */
+    public double getRegressingSlopeError() {
+        if (count < 3) return Double.NaN;
+
+        if (isExactInteger(sumOfYears) && isExactInteger(sumOfSquaredYears) && isExactInteger(total)
+            && isExactInteger(sumOfSquares) && isExactInteger(sumOfProducts)) {
+            // with n the count, x the years and y the values: A = n*Sxx - Sx^2, B = n*Sxy - Sx*Sy, C = n*Syy - Sy^2,
+            // the sum of the squared residuals is (A*C - B^2) / (n*A) and the error sqrt((A*C - B^2) / (n-2)) / A
+            final BigInteger n = BigInteger.valueOf(count);
+            final BigInteger x = BigInteger.valueOf((long) sumOfYears);
+            final BigInteger y = BigInteger.valueOf((long) total);
+            final BigInteger a = n.multiply(BigInteger.valueOf((long) sumOfSquaredYears)).subtract(x.multiply(x));
+            final BigInteger b = n.multiply(BigInteger.valueOf((long) sumOfProducts)).subtract(x.multiply(y));
+            final BigInteger c = n.multiply(BigInteger.valueOf((long) sumOfSquares)).subtract(y.multiply(y));
+            final BigInteger residuals = a.multiply(c).subtract(b.multiply(b));
+            return Math.sqrt(residuals.doubleValue() / (count - 2)) / a.doubleValue();
+        }
+
+        final double spreadOfYears  = sumOfSquaredYears - sumOfYears * sumOfYears / count;
+        final double spreadOfValues = sumOfSquares - total * total / count;
+        final double covariance     = sumOfProducts - sumOfYears * total / count;
+        final double residuals = Math.max(0.0, spreadOfValues - covariance * covariance / spreadOfYears);
+        return Math.sqrt(residuals / (count - 2) / spreadOfYears);
+    }
+
+    /**
+     * Returns the t-statistic of the slope, i.e. the slope divided by its standard error
+     * <p>
+     * It is NaN when the standard error is zero or not defined: the values of the window then lie exactly on a 
+     * line, e.g. three collinear points, which says nothing about how significant their trend is.
+     */
+    public double getSlopeSignificance() {
+        final double error = getRegressingSlopeError();
+        if (!(error > 0.0)) return Double.NaN;
+        return getRegressingSlope() / error;
+    }
+
+    /**
+     * Checks whether a sum is an integer that a {@code double} holds exactly
+     */
+    final private static boolean isExactInteger(final double sum) {
+        return Math.abs(sum) <= EXACT_LIMIT && sum == Math.rint(sum);
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+            "RangeStats [%d, %d]: [count: %d, non-zero: %d, total: %s, mean: %s, variance: %s, slope: %s]",
+            startYear, endYear, count, nonZeroCount, total, getMean(), getVariance(), getRegressingSlope()
+        );
+    }
+}
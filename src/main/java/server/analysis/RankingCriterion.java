@@ -0,0 +1,60 @@
+package server.analysis;
+
+
+import java.util.Locale;
+import java.util.Optional;
+
+
+/**
+ * The criteria by which rows can be ranked, computed from the {@code RangeStatistics} of a year window
+ */
+public enum RankingCriterion {
+    /** the slope of the least-squares line of the values over the years */
+    SLOPE {
+        @Override
+        public double score(final RangeStatistics statistics) {
+            return statistics.getRegressingSlope();
+        }
+    },
+    /** the sum of the values */
+    TOTAL {
+        @Override
+        public double score(final RangeStatistics statistics) {
+            return statistics.getNumberOfValues() == 0 ? Double.NaN : statistics.getTotalOccurences();
+        }
+    },
+    /** the mean of the values */
+    MEAN {
+        @Override
+        public double score(final RangeStatistics statistics) {
+            return statistics.getMean();
+        }
+    },
+    /** the t-statistic of the slope, i.e. the slope divided by its standard error */
+    SIGNIFICANCE {
+        @Override
+        public double score(final RangeStatistics statistics) {
+            return statistics.getSlopeSignificance();
+        }
+    };
+
+    /**
+     * Returns the score of a window; higher scores rank first
+     * @param statistics    the statistics of the window
+     * @return              the score; NaN if it is not defined, e.g. the slope of a single year
+     */
+    public abstract double score(final RangeStatistics statistics);
+
+    /**
+     * Finds a criterion by its name, ignoring case
+     * @param name  the name of a criterion, e.g. "slope"
+     * @return      the criterion; empty if there is no criterion with that name
+     * @throws IllegalArgumentException if the name is null
+     */
+    public static Optional<RankingCriterion> forName(final String name) throws IllegalArgumentException {
+        if (name == null) throw new IllegalArgumentException("The name of a ranking criterion must not be null");
+        for (final RankingCriterion criterion : values())
+            if (criterion.name().equals(name.trim().toUpperCase(Locale.ROOT))) return Optional.of(criterion);
+        return Optional.empty();
+    }
+}
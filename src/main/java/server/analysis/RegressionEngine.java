@@ -15,11 +15,19 @@ final public class RegressionEngine {
     final private SimpleRegression regression = new SimpleRegression();
 
     public RegressionEngine(final TimeSeries timeSeries) {
-        timeSeries.getOccurrences().forEach( 
-            pair -> {
-                regression.addData(pair.getFirst(), pair.getSecond());
-            }
-        );
+        timeSeries.forEach(regression::addData);
+    }
+
+    public RegressionEngine(final RegressionSummary summary) {
+        regression.append(summary.getRegression());
+    }
+
+    /**
+     * Returns a mergeable summary of the regression
+     * @return a mergeable summary of the regression
+     */
+    public RegressionSummary getSummary() {
+        return new RegressionSummary(regression);
     }
 
     public double getRegressionIntercept() {
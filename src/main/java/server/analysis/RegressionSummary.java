@@ -0,0 +1,102 @@
+package server.analysis;
+
+
+import java.util.Collection;
+
+import org.apache.commons.math3.stat.regression.SimpleRegression;
+
+import server.commons.TimeSeries;
+
+
+/**
+ * An immutable, mergeable summary of the simple linear regression of some (year, value) observations
+ * <p>
+ * Merging the summaries of disjoint sets of observations gives the summary of their union in constant time;
+ * it relies on {@link SimpleRegression#append(SimpleRegression)}.
+ */
+final public class RegressionSummary {
+    /**
+     * The summary of no observations; the identity of {@link #merge(RegressionSummary)}
+     */
+    final public static RegressionSummary EMPTY = new RegressionSummary(new SimpleRegression());
+
+    final private static int PARALLEL_THRESHOLD = 1 << 12;
+
+    final private SimpleRegression regression;
+
+    /**
+     * Constructs a summary around a regression; it must not be modified afterwards
+     * @param regression    the regression to summarize
+     */
+    RegressionSummary(final SimpleRegression regression) {
+        this.regression = regression;
+    }
+
+    /**
+     * Creates the summary of the observations of a timeSeries
+     * @param timeSeries    a timeSeries
+     * @return              the summary of its observations
+     */
+    public static RegressionSummary of(final TimeSeries timeSeries) {
+        final SimpleRegression regression = new SimpleRegression();
+        timeSeries.forEach(regression::addData);
+        return new RegressionSummary(regression);
+    }
+
+    /**
+     * Merges two summaries; neither of them is modified
+     * @param other     another summary
+     * @return          the summary of the observations of both summaries
+     */
+    public RegressionSummary merge(final RegressionSummary other) {
+        final SimpleRegression merged = new SimpleRegression();
+        merged.append(regression);
+        merged.append(other.regression);
+        return new RegressionSummary(merged);
+    }
+
+    /**
+     * Merges many summaries
+     * <p>
+     * Large collections are reduced in parallel on the common fork-join pool.
+     * @param summaries     the summaries to merge
+     * @return              the summary of the observations of all the summaries
+     */
+    public static RegressionSummary mergeAll(final Collection<RegressionSummary> summaries) {
+        final SimpleRegression merged = (summaries.size() < PARALLEL_THRESHOLD ? summaries.stream() : summaries.parallelStream())
+            .collect(
+                SimpleRegression::new,
+                (regression, summary) -> regression.append(summary.regression),
+                SimpleRegression::append
+            );
+        return new RegressionSummary(merged);
+    }
+
+    /**
+     * Returns the underlying regression; it must not be modified
+     */
+    SimpleRegression getRegression() {
+        return regression;
+    }
+
+    public long getN() {
+        return regression.getN();
+    }
+
+    public double getRegressionIntercept() {
+        return regression.getIntercept();
+    }
+
+    public double getRegressingSlope() {
+        return regression.getSlope();
+    }
+
+    public double getRegressingSlopeError() {
+        return regression.getSlopeStdErr();
+    }
+
+    @Override
+    public String toString() {
+        return new RegressionEngine(this).getRegressionResultString();
+    }
+}
@@ -0,0 +1,215 @@
+package server.analysis;
+
+
+import java.util.Arrays;
+
+import server.commons.TimeSeries;
+
+
+/**
+ * An engine that resamples a {@code TimeSeries} into fixed-width year buckets or trailing rolling windows
+ * <p>
+ * Both resamplings take a single pass over the pairs of the series. Buckets are aligned to multiples of their
+ * width, e.g. 1980-1984 and 1985-1989 for 5-year buckets, and labeled by their first year. A rolling window of
+ * width w is labeled by its last year y and covers [y-w+1, y]; there is one window per year from the first year
+ * of the series plus w-1 to its last year, so every window lies within the span of the series. Years without an
+ * observation are absent, not zero: a bucket or a window without observations is left out, and the mean of a
+ * bucket or window divides its sum by the number of its observations.
+ * <p>
+ * The results are kept in primitive buffers that are reused from one resampling to the next; they are valid until
+ * the next resampling. An engine is not thread-safe; every thread needs its own.
+ */
+final public class Resampler {
+    private int size = 0;
+    private int[] years  = new int[64];
+    private long[] sums  = new long[64];
+    private int[] counts = new int[64];
+    private int[] mins   = new int[64];
+    private int[] maxs   = new int[64];
+
+    // the dense observations of the current series and the monotonic queues of the rolling extrema
+    private int[] values = new int[64];
+    private boolean[] present = new boolean[64];
+    private int[] minQueue = new int[64];
+    private int[] maxQueue = new int[64];
+
+    /**
+     * Resamples a series into buckets of consecutive years
+     * @param timeSeries    the series to resample
+     * @param width         the number of years of a bucket
+     * @return              the number of non-empty buckets, in increasing year order
+     * @throws IllegalArgumentException if the width is not positive
+     */
+    public int bucket(final TimeSeries timeSeries, final int width) throws IllegalArgumentException {
+        if (width <= 0) throw new IllegalArgumentException("The width of a bucket must be positive");
+
+        size = 0;
+        ensureCapacity(timeSeries.size());
+
+        timeSeries.forEach((year, value) -> {
+            final int start = Math.floorDiv(year, width) * width;
+            if (size == 0 || years[size-1] != start) {
+                years[size]  = start;
+                sums[size]   = 0;
+                counts[size] = 0;
+                mins[size]   = value;
+                maxs[size]   = value;
+                size += 1;
+            }
+            final int bucket = size-1;
+            sums[bucket]   += value;
+            counts[bucket] += 1;
+            if (value < mins[bucket]) mins[bucket] = value;
+            if (value > maxs[bucket]) maxs[bucket] = value;
+        });
+
+        return size;
+    }
+
+    /**
+     * Resamples a series into trailing rolling windows
+     * <p>
+     * The sum and the count of a window are updated incrementally as it slides and its extrema are kept in two
+     * monotonic queues, so every year enters and leaves them once.
+     * @param timeSeries    the series to resample
+     * @param width         the number of years of a window
+     * @return              the number of non-empty windows, in increasing year order
+     * @throws IllegalArgumentException if the width is not positive
+     */
+    public int roll(final TimeSeries timeSeries, final int width) throws IllegalArgumentException {
+        if (width <= 0) throw new IllegalArgumentException("The width of a window must be positive");
+
+        size = 0;
+        final int n = timeSeries.size();
+        if (n == 0) return 0;
+
+        final int first = timeSeries.yearAt(0);
+        final int span  = timeSeries.yearAt(n-1) - first + 1;
+        if (span < width) return 0;
+
+        if (values.length < span) {
+            final int length = Math.max(span, 2*values.length);
+            values   = new int[length];
+            present  = new boolean[length];
+            minQueue = new int[length];
+            maxQueue = new int[length];
+        }
+        Arrays.fill(present, 0, span, false);
+        timeSeries.forEach((year, value) -> {
+            values[year - first]  = value;
+            present[year - first] = true;
+        });
+
+        ensureCapacity(span - width + 1);
+
+        long sum = 0;
+        int count = 0;
+        int minHead = 0, minTail = 0;
+        int maxHead = 0, maxTail = 0;
+
+        for (int i = 0; i < span; i++) {
+            if (present[i]) {
+                final int value = values[i];
+                sum   += value;
+                count += 1;
+                while (minTail > minHead && values[minQueue[minTail-1]] >= value) minTail -= 1;
+                while (maxTail > maxHead && values[maxQueue[maxTail-1]] <= value) maxTail -= 1;
+                minQueue[minTail++] = i;
+                maxQueue[maxTail++] = i;
+            }
+            if (i >= width && present[i-width]) {
+                sum   -= values[i-width];
+                count -= 1;
+                if (minHead < minTail && minQueue[minHead] == i-width) minHead += 1;
+                if (maxHead < maxTail && maxQueue[maxHead] == i-width) maxHead += 1;
+            }
+            if (i < width-1 || count == 0) continue;
+
+            years[size]  = first + i;
+            sums[size]   = sum;
+            counts[size] = count;
+            mins[size]   = values[minQueue[minHead]];
+            maxs[size]   = values[maxQueue[maxHead]];
+            size += 1;
+        }
+
+        return size;
+    }
+
+    /**
+     * Grows the result buffers so that they can hold the given number of results
+     */
+    final private void ensureCapacity(final int capacity) {
+        if (capacity <= years.length) return;
+
+        final int length = Math.max(capacity, 2*years.length);
+        years  = new int[length];
+        sums   = new long[length];
+        counts = new int[length];
+        mins   = new int[length];
+        maxs   = new int[length];
+    }
+
+    /**
+     * Returns the number of results of the last resampling
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the label of a result: the first year of a bucket or the last year of a window
+     */
+    public int getYear(final int index) {
+        return years[checkIndex(index)];
+    }
+
+    public long getSum(final int index) {
+        return sums[checkIndex(index)];
+    }
+
+    /**
+     * Returns the number of observations of a result
+     */
+    public int getCount(final int index) {
+        return counts[checkIndex(index)];
+    }
+
+    public double getMean(final int index) {
+        return (double) sums[checkIndex(index)] / counts[index];
+    }
+
+    public int getMin(final int index) {
+        return mins[checkIndex(index)];
+    }
+
+    public int getMax(final int index) {
+        return maxs[checkIndex(index)];
+    }
+
+    /**
+     * Copies the labels of the results into an array
+     * @param destination   an array with room for {@link #size()} labels
+     * @return              the array
+     */
+    public int[] copyYears(final int[] destination) {
+        System.arraycopy(years, 0, destination, 0, size);
+        return destination;
+    }
+
+    /**
+     * Copies the sums of the results into an array
+     * @param destination   an array with room for {@link #size()} sums
+     * @return              the array
+     * @throws ArithmeticException if a sum does not fit in an int
+     */
+    public int[] copySums(final int[] destination) throws ArithmeticException {
+        for (int i = 0; i < size; i++) destination[i] = Math.toIntExact(sums[i]);
+        return destination;
+    }
+
+    final private int checkIndex(final int index) throws IndexOutOfBoundsException {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        return index;
+    }
+}
@@ -3,23 +3,115 @@ package server.analysis;
 
 import java.util.Arrays;
 
-import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics;
+import org.apache.commons.math3.util.FastMath;
 
 import server.commons.TimeSeries;
 
 
 /**
  * A class that computes descriptive statistics for a {@code TimeSeries}
+ * <p>
+ * Every statistic is computed once, in the constructor, by sweeping the values of the timeSeries; the values
+ * are neither copied nor sorted. The count, extrema, total and median are accumulated in a single pass by a
+ * {@code StreamingStatistics}. The moments reuse the two-pass estimators of commons-math
+ * {@code DescriptiveStatistics}, fused into two more sweeps, so that the reported values stay identical to theirs
+ * down to the last digit.
+ * <p>
+ * An engine can also be built from a mergeable {@code StatisticsSummary}; its moments then come from the summary.
  */
 final public class StatisticsEngine {
-    final private DescriptiveStatistics statistics = new DescriptiveStatistics();
+    final private StreamingStatistics statistics;
+    final private double median;
+    final private double mean;
+    final private double variance;
+    final private double skewness;
+    final private double kurtosis;
 
     public StatisticsEngine(final TimeSeries timeSeries) {
-        timeSeries.getOccurrences().forEach( 
-            pair -> {
-                statistics.addValue(pair.getSecond());
-            }
-        );
+        final int n = timeSeries.size();
+
+        statistics = new StreamingStatistics();
+
+        // running mean and second moment, as updated by the storeless commons-math moments
+        double runningMean = 0.0;
+        double runningSecondMoment = 0.0;
+
+        for (int i = 0; i < n; i++) {
+            final int value = timeSeries.valueAt(i);
+            statistics.add(value);
+
+            final double deviation = value - runningMean;
+            final double scaledDeviation = deviation / (i+1);
+            runningMean += scaledDeviation;
+            runningSecondMoment += ((double) i) * deviation * scaledDeviation;
+        }
+
+        median = statistics.hasMedian() ? statistics.getMedian() : medianOf(timeSeries);
+
+        final double xbar = statistics.getSum() / n;
+        double correction = 0.0;
+        double fourthPowers = 0.0;
+
+        for (int i = 0; i < n; i++) {
+            final int value = timeSeries.valueAt(i);
+            correction += value - xbar;
+            fourthPowers += FastMath.pow(value - runningMean, 4.0);
+        }
+
+        mean = n == 0 ? Double.NaN : xbar + (correction / n);
+
+        double squares = 0.0;
+        double deviations = 0.0;
+        double cubes = 0.0;
+
+        for (int i = 0; i < n; i++) {
+            final double deviation = timeSeries.valueAt(i) - mean;
+            squares += deviation * deviation;
+            deviations += deviation;
+            cubes += deviation * deviation * deviation;
+        }
+
+        final double n0 = n;
+
+        variance = n == 0 ? Double.NaN : n == 1 ? 0.0 : (squares - (deviations * deviations / n0)) / (n0 - 1.0);
+
+        skewness = n < 3 ? Double.NaN : (n0 / ((n0 - 1) * (n0 - 2))) * (cubes / (variance * FastMath.sqrt(variance)));
+
+        if (n < 4) {
+            kurtosis = Double.NaN;
+        } else {
+            final double standardDeviation = FastMath.sqrt(runningSecondMoment / (n0 - 1d));
+            final double coefficientOne = (n0 * (n0 + 1)) / ((n0 - 1) * (n0 - 2) * (n0 - 3));
+            final double termTwo = (3 * FastMath.pow(n0 - 1, 2.0)) / ((n0 - 2) * (n0 - 3));
+            kurtosis = (coefficientOne * (fourthPowers / FastMath.pow(standardDeviation, 4.0d))) - termTwo;
+        }
+    }
+
+    public StatisticsEngine(final StatisticsSummary summary) {
+        statistics = summary.getStatistics();
+        median     = summary.getMedian();
+        mean       = statistics.getMean();
+        variance   = statistics.getVariance();
+        skewness   = statistics.getSkewness();
+        kurtosis   = statistics.getKurtosis();
+    }
+
+    /**
+     * Returns a mergeable summary of the statistics
+     * @return a mergeable summary of the statistics
+     */
+    public StatisticsSummary getSummary() {
+        return new StatisticsSummary(statistics);
+    }
+
+    /**
+     * Computes the median of a timeSeries whose values do not fit in the histogram of {@code StreamingStatistics}
+     */
+    final private static double medianOf(final TimeSeries timeSeries) {
+        final int[] values = new int[timeSeries.size()];
+        for (int i = 0; i < values.length; i++)
+            values[i] = timeSeries.valueAt(i);
+        return StreamingStatistics.median(values, values.length);
     }
 
     public long getNumberOfValues() {
@@ -35,27 +127,27 @@ final public class StatisticsEngine {
     }
 
     public double getMean() {
-        return statistics.getMean();
+        return mean;
     }
 
     public double getMedian() {
-        return statistics.getPercentile(50);
+        return median;
     }
 
     public double getStandardDeviation() {
-        return statistics.getStandardDeviation();
+        return FastMath.sqrt(variance);
     }
 
     public double getVariance() {
-        return statistics.getVariance();
+        return variance;
     }
 
     public double getSkewness() {
-        return statistics.getSkewness();
+        return skewness;
     }
 
     public double getKurtosis() {
-        return statistics.getKurtosis();
+        return kurtosis;
     }
     
     public double getTotalOccurences() {
@@ -0,0 +1,128 @@
+package server.analysis;
+
+
+import java.util.Collection;
+
+import server.commons.TimeSeries;
+
+
+/**
+ * An immutable, mergeable summary of the descriptive statistics of some values
+ * <p>
+ * Merging the summaries of disjoint sets of values gives the summary of their union in constant time, so the
+ * statistics of many rows can be combined from their precomputed summaries without revisiting their values.
+ * The moments of a summary are kept as central sums that are merged pairwise, see {@code StreamingStatistics}; 
+ * the median is only available when every value is a small non-negative integer.
+ */
+final public class StatisticsSummary {
+    /**
+     * The summary of no values; the identity of {@link #merge(StatisticsSummary)}
+     */
+    final public static StatisticsSummary EMPTY = new StatisticsSummary(new StreamingStatistics());
+
+    final private static int PARALLEL_THRESHOLD = 1 << 12;
+
+    final private StreamingStatistics statistics;
+
+    /**
+     * Constructs a summary around some statistics; they must not be modified afterwards
+     * @param statistics    the statistics to summarize
+     */
+    StatisticsSummary(final StreamingStatistics statistics) {
+        this.statistics = statistics;
+    }
+
+    /**
+     * Creates the summary of the values of a timeSeries
+     * @param timeSeries    a timeSeries
+     * @return              the summary of its values
+     */
+    public static StatisticsSummary of(final TimeSeries timeSeries) {
+        final StreamingStatistics statistics = new StreamingStatistics();
+        for (int i = 0; i < timeSeries.size(); i++)
+            statistics.add(timeSeries.valueAt(i));
+        return new StatisticsSummary(statistics);
+    }
+
+    /**
+     * Merges two summaries; neither of them is modified
+     * @param other     another summary
+     * @return          the summary of the values of both summaries
+     */
+    public StatisticsSummary merge(final StatisticsSummary other) {
+        return new StatisticsSummary(new StreamingStatistics().merge(statistics).merge(other.statistics));
+    }
+
+    /**
+     * Merges many summaries
+     * <p>
+     * Large collections are reduced in parallel on the common fork-join pool.
+     * @param summaries     the summaries to merge
+     * @return              the summary of the values of all the summaries
+     */
+    public static StatisticsSummary mergeAll(final Collection<StatisticsSummary> summaries) {
+        final StreamingStatistics merged = (summaries.size() < PARALLEL_THRESHOLD ? summaries.stream() : summaries.parallelStream())
+            .collect(
+                StreamingStatistics::new,
+                (statistics, summary) -> statistics.merge(summary.statistics),
+                StreamingStatistics::merge
+            );
+        return new StatisticsSummary(merged);
+    }
+
+    /**
+     * Returns the underlying statistics; they must not be modified
+     */
+    StreamingStatistics getStatistics() {
+        return statistics;
+    }
+
+    public long getNumberOfValues() {
+        return statistics.getN();
+    }
+
+    public double getMin() {
+        return statistics.getMin();
+    }
+
+    public double getMax() {
+        return statistics.getMax();
+    }
+
+    public double getMean() {
+        return statistics.getMean();
+    }
+
+    /**
+     * Returns the median of the values
+     * @return the median of the values; {@code NaN} if it is not available
+     */
+    public double getMedian() {
+        return statistics.hasMedian() ? statistics.getMedian() : Double.NaN;
+    }
+
+    public double getStandardDeviation() {
+        return statistics.getStandardDeviation();
+    }
+
+    public double getVariance() {
+        return statistics.getVariance();
+    }
+
+    public double getSkewness() {
+        return statistics.getSkewness();
+    }
+
+    public double getKurtosis() {
+        return statistics.getKurtosis();
+    }
+
+    public double getTotalOccurences() {
+        return statistics.getSum();
+    }
+
+    @Override
+    public String toString() {
+        return new StatisticsEngine(this).getDescriptiveStatsString();
+    }
+}
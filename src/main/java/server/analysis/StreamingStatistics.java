@@ -0,0 +1,239 @@
+package server.analysis;
+
+
+import java.util.Arrays;
+
+
+/**
+ * A single-pass accumulator of descriptive statistics for integer values
+ * <p>
+ * Instead of storing the values it keeps their count, sum, extrema, mean and the sums of the second, third and
+ * fourth powers of their deviations from the mean, updated value by value with the recurrences of Welford and
+ * Terriberry. Central sums never cancel the way raw power sums do, so the moments stay accurate however many
+ * values, or merged summaries, they cover.
+ * Values in [0, {@value #HISTOGRAM_LIMIT}) are also counted in a histogram that yields the exact median;
+ * when another value is added the median becomes unavailable, see {@link #hasMedian()}.
+ * <p>
+ * The definitions of the statistics follow the ones of commons-math {@code DescriptiveStatistics}:
+ * the variance is the bias-corrected sample variance and the median is the legacy 50th percentile.
+ * <p>
+ * Two instances can be merged into the statistics of the union of their values with the pairwise update of Chan
+ * and Pebay, see {@link #merge(StreamingStatistics)}; the merged moments agree with those of a single pass up to 
+ * rounding, whatever the order of the merges.
+ */
+final public class StreamingStatistics {
+    final static int HISTOGRAM_LIMIT = 128;
+
+    private long n = 0;
+    private long sum = 0;
+    private double mean = 0;
+    private double m2 = 0;
+    private double m3 = 0;
+    private double m4 = 0;
+    private int min = Integer.MAX_VALUE;
+    private int max = Integer.MIN_VALUE;
+    private int[] histogram = new int[0];
+
+    /**
+     * Adds a value to the statistics
+     * @param value the value to add
+     */
+    public void add(final int value) {
+        final double n1 = n;
+        n   += 1;
+        sum += value;
+
+        final double n0      = n;
+        final double delta   = value - mean;
+        final double deltaN  = delta / n0;
+        final double deltaN2 = deltaN * deltaN;
+        final double term    = delta * deltaN * n1;
+
+        mean += deltaN;
+        m4   += term * deltaN2 * (n0*n0 - 3*n0 + 3) + 6 * deltaN2 * m2 - 4 * deltaN * m3;
+        m3   += term * deltaN * (n0 - 2) - 3 * deltaN * m2;
+        m2   += term;
+
+        if (value < min) min = value;
+        if (value > max) max = value;
+
+        if (histogram == null) return;
+
+        if (value < 0 || value >= HISTOGRAM_LIMIT) {
+            histogram = null;
+            return;
+        }
+
+        if (value >= histogram.length) histogram = Arrays.copyOf(histogram, value+1);
+        histogram[value] += 1;
+    }
+
+    /**
+     * Adds all the values of another instance to the statistics; the other instance is left untouched
+     * @param other     the statistics to merge into this one
+     * @return          this instance; useful in operation chaining
+     */
+    public StreamingStatistics merge(final StreamingStatistics other) {
+        mergeMoments(other);
+        sum += other.sum;
+
+        if (other.min < min) min = other.min;
+        if (other.max > max) max = other.max;
+
+        if (histogram == null || other.histogram == null) {
+            histogram = null;
+            return this;
+        }
+
+        if (other.histogram.length > histogram.length) histogram = Arrays.copyOf(histogram, other.histogram.length);
+        for (int value = 0; value < other.histogram.length; value++)
+            histogram[value] += other.histogram[value];
+
+        return this;
+    }
+
+    public long getN() {
+        return n;
+    }
+
+    public double getMin() {
+        return n == 0 ? Double.NaN : min;
+    }
+
+    public double getMax() {
+        return n == 0 ? Double.NaN : max;
+    }
+
+    public double getSum() {
+        return sum;
+    }
+
+    public double getMean() {
+        return n == 0 ? Double.NaN : (double) sum / n;
+    }
+
+    public double getVariance() {
+        if (n == 0) return Double.NaN;
+        if (n == 1) return 0.0;
+        return m2 / (n-1);
+    }
+
+    public double getStandardDeviation() {
+        return Math.sqrt(getVariance());
+    }
+
+    public double getSkewness() {
+        if (n < 3) return Double.NaN;
+
+        final double variance = getVariance();
+        final double n0 = n;
+
+        return (n0 / ((n0-1) * (n0-2))) * (m3 / (variance * Math.sqrt(variance)));
+    }
+
+    public double getKurtosis() {
+        if (n < 4) return Double.NaN;
+
+        final double variance = getVariance();
+        final double n0 = n;
+
+        final double coefficientOne = (n0 * (n0+1)) / ((n0-1) * (n0-2) * (n0-3));
+        final double termTwo        = (3 * (n0-1) * (n0-1)) / ((n0-2) * (n0-3));
+
+        return coefficientOne * (m4 / (variance * variance)) - termTwo;
+    }
+
+    /**
+     * Returns whether {@link #getMedian()} is available, i.e. whether every value fitted in the histogram
+     * @return whether the median is available
+     */
+    public boolean hasMedian() {
+        return histogram != null;
+    }
+
+    /**
+     * Returns the median of the values
+     * @return the median of the values; {@code NaN} if there are no values
+     * @throws IllegalStateException if the median is not available
+     */
+    public double getMedian() throws IllegalStateException {
+        if (histogram == null) throw new IllegalStateException("The median is only tracked for values in [0, " + HISTOGRAM_LIMIT + ")");
+        if (n == 0) return Double.NaN;
+
+        final double position = 0.5 * (n+1);
+        final long   index    = (long) position;
+
+        if (index >= n) return max;
+
+        final int lower = valueAtRank(index-1);
+        final int upper = valueAtRank(index);
+        return lower + (position - index) * (upper - lower);
+    }
+
+    /**
+     * Returns the median of some values the way {@link #getMedian()} does, by sorting a copy of them
+     * @param values    the values
+     * @param length    the number of values to consider
+     * @return          the median of the first length values
+     */
+    static double median(final int[] values, final int length) {
+        if (length == 0) return Double.NaN;
+
+        final int[] sorted = Arrays.copyOf(values, length);
+        Arrays.sort(sorted);
+
+        final double position = 0.5 * (length+1);
+        final int    index    = (int) position;
+
+        if (index >= length) return sorted[length-1];
+        return sorted[index-1] + (position - index) * (sorted[index] - sorted[index-1]);
+    }
+
+    /**
+     * Returns the value with the given 0-based rank in the sorted values
+     */
+    private int valueAtRank(final long rank) {
+        long seen = 0;
+        for (int value = 0; value < histogram.length; value++) {
+            seen += histogram[value];
+            if (seen > rank) return value;
+        }
+        throw new AssertionError("This code is supposed to be unreachable");
+    }
+
+    /**
+     * Merges the count, the mean and the central sums of another instance into this one
+     */
+    private void mergeMoments(final StreamingStatistics other) {
+        if (other.n == 0) return;
+        if (n == 0) {
+            n    = other.n;
+            mean = other.mean;
+            m2   = other.m2;
+            m3   = other.m3;
+            m4   = other.m4;
+            return;
+        }
+
+        final double na = n;
+        final double nb = other.n;
+        final double n0 = na + nb;
+        final double delta  = other.mean - mean;
+        final double delta2 = delta * delta;
+
+        final double mergedM4 = m4 + other.m4
+            + delta2 * delta2 * na * nb * (na*na - na*nb + nb*nb) / (n0*n0*n0)
+            + 6 * delta2 * (na*na * other.m2 + nb*nb * m2) / (n0*n0)
+            + 4 * delta * (na * other.m3 - nb * m3) / n0;
+        final double mergedM3 = m3 + other.m3
+            + delta2 * delta * na * nb * (na - nb) / (n0*n0)
+            + 3 * delta * (na * other.m2 - nb * m2) / n0;
+        final double mergedM2 = m2 + other.m2 + delta2 * na * nb / n0;
+
+        n    += other.n;
+        mean += delta * nb / n0;
+        m2   = mergedM2;
+        m3   = mergedM3;
+        m4   = mergedM4;
+    }
+}
@@ -0,0 +1,147 @@
+package server.analysis;
+
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.IntStream;
+
+
+/**
+ * Selects the k rows with the highest scores without sorting all of them
+ * <p>
+ * The best rows seen so far are kept in a bounded min-heap whose root is the weakest of them, so a row that does 
+ * not beat the root is rejected in constant time and the selection takes O(n log k). Large lists are split across
+ * the common fork-join pool, each part filling its own heap, and the heaps are then merged. Rows whose score is 
+ * NaN are left out; rows with equal scores keep their order in the list.
+ */
+final public class TopK {
+    final private static int PARALLEL_THRESHOLD = 1 << 12;
+
+    // hide the constructor
+    private TopK() {}
+
+    /**
+     * Selects the k rows with the highest scores
+     * @param rows      the rows
+     * @param score     computes the score of a row
+     * @param k         the maximum number of rows to select
+     * @return          the selected rows, from the highest score to the lowest
+     * @throws IllegalArgumentException if k is not positive
+     */
+    public static <R> List<R> select(final List<R> rows, final ToDoubleFunction<? super R> score, final int k) throws IllegalArgumentException {
+        if (k <= 0) throw new IllegalArgumentException("k must be positive");
+        if (rows.isEmpty()) return new ArrayList<>();
+
+        // k may be as large as Integer.MAX_VALUE, but a heap never holds more than all the rows
+        final int capacity = Math.min(k, rows.size());
+        final IntStream indices = IntStream.range(0, rows.size());
+        final Heap heap = (rows.size() < PARALLEL_THRESHOLD ? indices : indices.parallel()).collect(
+            () -> new Heap(capacity),
+            (partial, index) -> partial.offer(score.applyAsDouble(rows.get(index)), index),
+            Heap::merge
+        );
+
+        final int[] ranked = heap.drain();
+        final List<R> selected = new ArrayList<>(ranked.length);
+        for (final int index : ranked) selected.add(rows.get(index));
+        return selected;
+    }
+
+    /**
+     * A bounded min-heap of (score, index) entries over two parallel primitive arrays
+     * <p>
+     * An entry is better than another one if it has a higher score, or the same score and a lower index.
+     */
+    final private static class Heap {
+        final private double[] scores;
+        final private int[] indices;
+        private int size = 0;
+
+        Heap(final int capacity) {
+            this.scores  = new double[capacity];
+            this.indices = new int[capacity];
+        }
+
+        /**
+         * Keeps an entry if the heap is not full or the entry beats its weakest entry
+         */
+        final void offer(final double score, final int index) {
+            if (Double.isNaN(score)) return;
+
+            if (size < scores.length) {
+                scores[size]  = score;
+                indices[size] = index;
+                siftUp(size++);
+            } else if (isBetter(score, index, 0)) {
+                scores[0]  = score;
+                indices[0] = index;
+                siftDown(0);
+            }
+        }
+
+        /**
+         * Offers all the entries of another heap to this one
+         */
+        final void merge(final Heap other) {
+            for (int i = 0; i < other.size; i++) offer(other.scores[i], other.indices[i]);
+        }
+
+        /**
+         * Empties the heap
+         * @return the indices of its entries, from the best to the weakest
+         */
+        final int[] drain() {
+            final int[] ranked = new int[size];
+            for (int i = size-1; i >= 0; i--) {
+                ranked[i] = indices[0];
+                size -= 1;
+                scores[0]  = scores[size];
+                indices[0] = indices[size];
+                siftDown(0);
+            }
+            return ranked;
+        }
+
+        /**
+         * Checks whether an entry is better than the entry at a position of the heap
+         */
+        final private boolean isBetter(final double score, final int index, final int position) {
+            return score > scores[position] || (score == scores[position] && index < indices[position]);
+        }
+
+        final private void siftUp(int position) {
+            while (position > 0) {
+                final int parent = (position-1) >>> 1;
+                if (!isBetter(scores[parent], indices[parent], position)) break;
+                swap(position, parent);
+                position = parent;
+            }
+        }
+
+        final private void siftDown(int position) {
+            while (true) {
+                final int left = 2*position + 1;
+                if (left >= size) return;
+
+                int weakest = left;
+                final int right = left + 1;
+                if (right < size && isBetter(scores[left], indices[left], right)) weakest = right;
+                if (!isBetter(scores[position], indices[position], weakest)) return;
+
+                swap(position, weakest);
+                position = weakest;
+            }
+        }
+
+        final private void swap(final int a, final int b) {
+            final double score = scores[a];
+            scores[a] = scores[b];
+            scores[b] = score;
+
+            final int index = indices[a];
+            indices[a] = indices[b];
+            indices[b] = index;
+        }
+    }
+}
@@ -1,13 +1,30 @@
 package server.commons;
 
 
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+
 /**
  * An immutable helper class that models a country
+ * <p>
+ * Countries are interned by {@link #intern}: there is a single instance per long name, numbered with a dense 
+ * ordinal, that can also be looked up by its iso2 or iso3 identifier.
  */
 final public class Country {
+    /**
+     * A pseudo-country that stands for all the countries; it labels aggregates across countries
+     */
+    final public static Country ALL = new Country("All countries", "", "");
+
+    final private static Dictionary<Country> dictionary = new Dictionary<>();
+    final private static ConcurrentHashMap<String, Country> byIso2 = new ConcurrentHashMap<>();
+    final private static ConcurrentHashMap<String, Country> byIso3 = new ConcurrentHashMap<>();
+
     private final String longName;
     private final String iso2;
     private final String iso3;
+    private final int ordinal;
     
     /**
      * Constructs a new country with the specified name, iso2, and iso3 values.
@@ -18,10 +35,86 @@ final public class Country {
      * @param countryIso3       the iso3 country identifier; a three letter country identifier
      */
     protected Country(final String countryName, final String countryIso2, final String countryIso3) {
-        longName = countryName;
-        iso2     = countryIso2;
-        iso3     = countryIso3;
+        this(countryName, countryIso2, countryIso3, -1);
     };
+
+    private Country(final String countryName, final String countryIso2, final String countryIso3, final int ordinal) {
+        longName     = countryName;
+        iso2         = countryIso2;
+        iso3         = countryIso3;
+        this.ordinal = ordinal;
+    }
+
+    /**
+     * Returns the interned country with the given long name, creating it if needed
+     * <p>
+     * The first country interned under a long name determines its iso2 and iso3 identifiers.
+     * @param countryName       the usual name of the country
+     * @param countryIso2       the iso2 country identifier; a two letter country identifier
+     * @param countryIso3       the iso3 country identifier; a three letter country identifier
+     * @return                  the interned country
+     */
+    final public static Country intern(final String countryName, final String countryIso2, final String countryIso3) {
+        return dictionary.intern(countryName, ordinal -> {
+            final Country country = new Country(countryName, countryIso2, countryIso3, ordinal);
+            if (!countryIso2.isEmpty()) byIso2.putIfAbsent(countryIso2, country);
+            if (!countryIso3.isEmpty()) byIso3.putIfAbsent(countryIso3, country);
+            return country;
+        });
+    }
+
+    /**
+     * Returns the interned country with the given long name
+     * @param countryName   the usual name of the country
+     * @return              the interned country; empty if there is none
+     */
+    final public static Optional<Country> forLongName(final String countryName) {
+        return Optional.ofNullable(dictionary.lookup(countryName));
+    }
+
+    /**
+     * Returns the interned country with the given iso2 identifier
+     * @param countryIso2   a two letter country identifier
+     * @return              the interned country; empty if there is none
+     */
+    final public static Optional<Country> forIso2(final String countryIso2) {
+        return Optional.ofNullable(byIso2.get(countryIso2));
+    }
+
+    /**
+     * Returns the interned country with the given iso3 identifier
+     * @param countryIso3   a three letter country identifier
+     * @return              the interned country; empty if there is none
+     */
+    final public static Optional<Country> forIso3(final String countryIso3) {
+        return Optional.ofNullable(byIso3.get(countryIso3));
+    }
+
+    /**
+     * Returns the interned country with the given ordinal
+     * @param ordinal   an ordinal in [0, {@link #count()})
+     * @return          the interned country with the given ordinal
+     * @throws IndexOutOfBoundsException if no country has the ordinal
+     */
+    final public static Country forOrdinal(final int ordinal) throws IndexOutOfBoundsException {
+        return dictionary.get(ordinal);
+    }
+
+    /**
+     * Returns the number of interned countries
+     * @return the number of interned countries
+     */
+    final public static int count() {
+        return dictionary.size();
+    }
+
+    /**
+     * Returns the ordinal of the country
+     * @return the ordinal of the country; -1 if it is not interned
+     */
+    final public int getOrdinal() {
+        return ordinal;
+    }
     
     /**
      * Returns the full name of the country
@@ -0,0 +1,75 @@
+package server.commons;
+
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntFunction;
+
+
+/**
+ * A thread-safe dictionary that interns values by a {@code String} key and numbers them with dense ordinals
+ * <p>
+ * Lookups by key or by ordinal never block; only the interning of a new value is synchronized.
+ * Values are never removed, so an ordinal stays valid for the lifetime of the dictionary.
+ *
+ * @param <T> the type of the interned values
+ */
+final class Dictionary<T> {
+    final private ConcurrentHashMap<String, T> byKey = new ConcurrentHashMap<>();
+    private volatile Object[] byOrdinal = new Object[16];
+    private volatile int size = 0;
+
+    /**
+     * Returns the value interned under a key
+     * @param key   a key
+     * @return      the value interned under the key; null if there is none
+     */
+    final T lookup(final String key) {
+        return byKey.get(key);
+    }
+
+    /**
+     * Returns the value with the given ordinal
+     * @param ordinal   an ordinal
+     * @return          the value with the given ordinal
+     * @throws IndexOutOfBoundsException if no value has the ordinal
+     */
+    @SuppressWarnings("unchecked")
+    final T get(final int ordinal) throws IndexOutOfBoundsException {
+        if (ordinal < 0 || ordinal >= size) throw new IndexOutOfBoundsException("Ordinal: " + ordinal + ", Size: " + size);
+        return (T) byOrdinal[ordinal];
+    }
+
+    /**
+     * Returns the number of interned values; the ordinals in use are 0 to size-1
+     * @return the number of interned values
+     */
+    final int size() {
+        return size;
+    }
+
+    /**
+     * Returns the value interned under a key, creating it with the next free ordinal if there is none
+     * @param key       a key
+     * @param factory   creates the value from its ordinal
+     * @return          the value interned under the key
+     */
+    final T intern(final String key, final IntFunction<T> factory) {
+        final T existing = byKey.get(key);
+        if (existing != null) return existing;
+
+        synchronized (this) {
+            final T raced = byKey.get(key);
+            if (raced != null) return raced;
+
+            final T value = factory.apply(size);
+
+            if (size == byOrdinal.length) byOrdinal = Arrays.copyOf(byOrdinal, 2*size);
+            byOrdinal[size] = value;
+            size += 1;
+
+            byKey.put(key, value);
+            return value;
+        }
+    }
+}
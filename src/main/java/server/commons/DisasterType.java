@@ -1,13 +1,30 @@
 package server.commons;
 
 
+import java.util.Optional;
+
+
 /**
  * An immutable helper class that models a disaster type
  * <p>
- * Currently it is just a thin wrapper around String
+ * Currently it is just a thin wrapper around String. Disaster types are interned by {@link #intern}: there is 
+ * a single instance per name, numbered with a dense ordinal.
  */
 final public class DisasterType {
+    /**
+     * The indicator of the rows that hold the sum of all the other disaster types of a country
+     */
+    final public static String TOTAL = "TOTAL";
+
+    /**
+     * A pseudo-type that stands for all the disaster types; it labels aggregates across types
+     */
+    final public static DisasterType ALL = new DisasterType("All types");
+
+    final private static Dictionary<DisasterType> dictionary = new Dictionary<>();
+
     private final String type;
+    private final int ordinal;
     
     /** 
      * Constructs a new instance of disasterType
@@ -17,9 +34,66 @@ final public class DisasterType {
      * @param disaster the type of the disaster
      */
     protected DisasterType(final String disaster) {
-        type = disaster;
+        this(disaster, -1);
+    }
+
+    private DisasterType(final String disaster, final int ordinal) {
+        this.type    = disaster;
+        this.ordinal = ordinal;
+    }
+
+    /**
+     * Returns the interned disaster type with the given name, creating it if needed
+     * @param disaster  the type of the disaster
+     * @return          the interned disaster type
+     */
+    final public static DisasterType intern(final String disaster) {
+        return dictionary.intern(disaster, ordinal -> new DisasterType(disaster, ordinal));
+    }
+
+    /**
+     * Returns the interned disaster type with the given name
+     * @param disaster  the type of the disaster
+     * @return          the interned disaster type; empty if there is none
+     */
+    final public static Optional<DisasterType> forName(final String disaster) {
+        return Optional.ofNullable(dictionary.lookup(disaster));
+    }
+
+    /**
+     * Returns the interned disaster type with the given ordinal
+     * @param ordinal   an ordinal in [0, {@link #count()})
+     * @return          the interned disaster type with the given ordinal
+     * @throws IndexOutOfBoundsException if no disaster type has the ordinal
+     */
+    final public static DisasterType forOrdinal(final int ordinal) throws IndexOutOfBoundsException {
+        return dictionary.get(ordinal);
+    }
+
+    /**
+     * Returns the number of interned disaster types
+     * @return the number of interned disaster types
+     */
+    final public static int count() {
+        return dictionary.size();
+    }
+
+    /**
+     * Returns the ordinal of the disaster type
+     * @return the ordinal of the disaster type; -1 if it is not interned
+     */
+    final public int getOrdinal() {
+        return ordinal;
     }
     
+    /**
+     * Returns whether this is the {@value #TOTAL} indicator, i.e. the sum of all the other types
+     * @return whether this is the {@value #TOTAL} indicator
+     */
+    final public boolean isTotal() {
+        return type.equals(TOTAL);
+    }
+
     @Override
     final public String toString() {
         return type;
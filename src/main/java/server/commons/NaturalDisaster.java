@@ -1,26 +1,33 @@
 package server.commons;
 
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 import org.apache.commons.math3.util.Pair;
 
 import dom2app.IMeasurementVector;
 
+import server.analysis.RangeIndex;
 import server.analysis.RegressionEngine;
 import server.analysis.StatisticsEngine;
 
 
 /**
  * An immutable class that models a natural disaster
+ * <p>
+ * The descriptive statistics, the regression and the range index of the measurements are computed on first use
+ * and then cached; the caching is thread-safe.
  */
 public final class NaturalDisaster implements IMeasurementVector {
     private final Integer id;
     private final Country country;
     private final DisasterType type;
     private final TimeSeries measurements;
-    private final StatisticsEngine statistics;
-    private final RegressionEngine regression;
+    private volatile StatisticsEngine statistics;
+    private volatile RegressionEngine regression;
+    private volatile RangeIndex rangeIndex;
     
     /**
      * Constructs a natural disaster
@@ -34,8 +41,6 @@ public final class NaturalDisaster implements IMeasurementVector {
         this.country      = country;
         this.type         = type;
         this.measurements = measurements;
-        this.statistics   = new StatisticsEngine(measurements);
-        this.regression   = new RegressionEngine(measurements);
     }
     
     /** 
@@ -62,6 +67,59 @@ public final class NaturalDisaster implements IMeasurementVector {
         return type;
     }
 
+    /**
+     * Returns the measurements of the natural disaster
+     * @return the measurements of the natural disaster
+     */
+    final public TimeSeries getTimeSeries() {
+        return measurements;
+    }
+
+    /**
+     * Returns the descriptive statistics of the measurements; they are computed on the first call
+     * @return the descriptive statistics of the measurements
+     */
+    final public StatisticsEngine getStatistics() {
+        StatisticsEngine result = statistics;
+        if (result == null) {
+            synchronized (this) {
+                result = statistics;
+                if (result == null) statistics = result = new StatisticsEngine(measurements);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the regression of the measurements; it is computed on the first call
+     * @return the regression of the measurements
+     */
+    final public RegressionEngine getRegression() {
+        RegressionEngine result = regression;
+        if (result == null) {
+            synchronized (this) {
+                result = regression;
+                if (result == null) regression = result = new RegressionEngine(measurements);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the prefix-sum index of the measurements; it is computed on the first call
+     * @return the prefix-sum index of the measurements
+     */
+    final public RangeIndex getRangeIndex() {
+        RangeIndex result = rangeIndex;
+        if (result == null) {
+            synchronized (this) {
+                result = rangeIndex;
+                if (result == null) rangeIndex = result = new RangeIndex(measurements);
+            }
+        }
+        return result;
+    }
+
     @Override
     final public String getCountryName() {
         return country.getLongName();
@@ -79,12 +137,12 @@ public final class NaturalDisaster implements IMeasurementVector {
 
     @Override
     final public String getDescriptiveStatsAsString() {
-        return statistics.getDescriptiveStatsString();
+        return getStatistics().getDescriptiveStatsString();
     }
 
     @Override
     final public String getRegressionResultAsString() {
-        return regression.getRegressionResultString();
+        return getRegression().getRegressionResultString();
     }
 
     /**
@@ -106,9 +164,9 @@ public final class NaturalDisaster implements IMeasurementVector {
         final String countryName = fields.get(1);
         final String iso2        = fields.get(2);
         final String iso3        = fields.get(3);
-        final Country country    = new Country(countryName, iso2, iso3);
+        final Country country    = Country.intern(countryName, iso2, iso3);
 
-        final DisasterType type  = new DisasterType(fields.get(4));
+        final DisasterType type  = DisasterType.intern(fields.get(4));
 
         final List<String> leftoverFields = fields.subList(5, fields.size());
         final TimeSeries measurements = TimeSeries.parse(leftoverFields, startYear);
@@ -116,6 +174,80 @@ public final class NaturalDisaster implements IMeasurementVector {
         return new NaturalDisaster(id, country, type, measurements);
     }
 
+    /**
+     * Creates a NaturalDisaster from already tokenized fields
+     * <p>
+     * The country and the type are interned; the first {@code length} years and counts are copied.
+     * 
+     * @param id            the id of the natural disaster
+     * @param countryName   the long name of the country
+     * @param iso2          the iso2 identifier of the country
+     * @param iso3          the iso3 identifier of the country
+     * @param typeName      the name of the disaster type
+     * @param years         the years of the measurements, strictly increasing
+     * @param counts        the measurement of each year
+     * @param length        the number of measurements
+     * @return              the natural disaster
+     * @throws IllegalArgumentException if the years are not strictly increasing
+     */
+    final public static NaturalDisaster create(
+        final int id,
+        final String countryName,
+        final String iso2,
+        final String iso3,
+        final String typeName,
+        final int[] years,
+        final int[] counts,
+        final int length
+    ) throws IllegalArgumentException {
+        final Country country   = Country.intern(countryName, iso2, iso3);
+        final DisasterType type = DisasterType.intern(typeName);
+        return new NaturalDisaster(id, country, type, TimeSeries.of(years, counts, length));
+    }
+
+    /**
+     * Creates a NaturalDisaster of an already interned country and type; the first {@code length} years and counts are copied
+     * 
+     * @param id            the id of the natural disaster
+     * @param country       the country of the natural disaster
+     * @param type          the disaster type
+     * @param years         the years of the measurements, strictly increasing
+     * @param counts        the measurement of each year
+     * @param length        the number of measurements
+     * @return              the natural disaster
+     * @throws IllegalArgumentException if the years are not strictly increasing
+     */
+    final public static NaturalDisaster create(
+        final int id,
+        final Country country,
+        final DisasterType type,
+        final int[] years,
+        final int[] counts,
+        final int length
+    ) throws IllegalArgumentException {
+        return new NaturalDisaster(id, country, type, TimeSeries.of(years, counts, length));
+    }
+
+    /**
+     * Creates a NaturalDisaster whose measurements are the yearly sums of the measurements of other natural disasters
+     * <p>
+     * The statistics and the regression of the aggregate describe the summed yearly series.
+     * 
+     * @param country       the country of the aggregate, e.g. {@link Country#ALL}
+     * @param type          the type of the aggregate, e.g. {@link DisasterType#ALL}
+     * @param disasters     the natural disasters to sum
+     * @return              the aggregate; its id is 0
+     */
+    final public static NaturalDisaster aggregate(
+        final Country country, 
+        final DisasterType type, 
+        final Collection<NaturalDisaster> disasters
+    ) {
+        final List<TimeSeries> measurements = new ArrayList<>(disasters.size());
+        disasters.forEach(disaster -> measurements.add(disaster.measurements));
+        return new NaturalDisaster(0, country, type, TimeSeries.sum(measurements));
+    }
+
     /**
      * Creates a new NaturalDisaster instance that contains only the disasters between lowYear and highYear inclusively.
      * @param lowYear      a low year number
@@ -127,6 +259,21 @@ public final class NaturalDisaster implements IMeasurementVector {
         return new NaturalDisaster(id, country, type, measurements.filter(lowYear, highYear));
     }
 
+    /**
+     * Checks whether another natural disaster holds the same data: the same id, country, type and measurements
+     * <p>
+     * The measurements are compared by their content hash first, so differing rows are usually told apart in
+     * constant time once their hashes are cached.
+     * @param other     another natural disaster
+     * @return          true if both hold the same data
+     */
+    final public boolean hasSameContent(final NaturalDisaster other) {
+        return id.equals(other.id) 
+            && country == other.country 
+            && type == other.type 
+            && measurements.equals(other.measurements);
+    }
+
     @Override
     final public String toString() {
         return String.join(", ", id.toString(), country.toString(), type.toString());
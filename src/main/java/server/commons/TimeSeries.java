@@ -1,103 +1,366 @@
 package server.commons;
 
 
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
-import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.RandomAccess;
 
 import org.apache.commons.math3.util.Pair;
 
 
 /**
  * An immutable helper class that stores (timeValue,intValue) pairs
+ * <p>
+ * The pairs are sorted by timeValue and every timeValue appears at most once. They are stored compressed: the
+ * timeValues as a bitmap over the span from the first to the last one, one bit per timeValue, and the intValues
+ * packed in a byte array with the smallest width, 1, 2 or 4 bytes, that fits all of them. A yearly series of
+ * disaster counts thus takes about one byte per present year plus one bit per year of its span, instead of the
+ * eight bytes per year of two int arrays. The boxed {@code Pair} representation is only produced on demand by
+ * {@link #getOccurrences()}.
+ * <p>
+ * {@link #valueAt(int)} reads a packed intValue in constant time; {@link #yearAt(int)} has to select the bit
+ * of the pair, so sequential consumers should use {@link #forEach(YearValueConsumer)}, which decodes the pairs
+ * in a single pass. The view of {@link #getOccurrences()} decodes the timeValues once, in the same way, when
+ * it is built.
+ * <p>
+ * A timeSeries may be a window over the storage of another timeSeries; since neither is ever modified
+ * the storage is shared instead of copied.
  */
 final public class TimeSeries {
-    final private List<Pair<Integer, Integer>> occurrences;
-    
-    /** 
+    final private static long[] NO_BITS = new long[0];
+    final private static byte[] NO_VALUES = new byte[0];
+    // the header and the fields of a timeSeries and the headers of its two arrays
+    final private static long OVERHEAD_BYTES = 80;
+
+    /**
+     * Receives the (timeValue,intValue) pairs of a timeSeries, in increasing timeValue order
+     */
+    @FunctionalInterface
+    public interface YearValueConsumer {
+        public void accept(final int timeValue, final int intValue);
+    }
+
+    final private int baseTime;
+    final private long[] present;
+    final private byte[] packed;
+    final private int width;
+    final private int fromBit;
+    final private int toBit;
+    final private int offset;
+    final private int length;
+    private List<Pair<Integer, Integer>> occurrences;
+    private int hash;
+
+    /**
      * Constructs an empty TimeSeries
      */
     protected TimeSeries() {
-        occurrences = new ArrayList<Pair<Integer, Integer>>();
+        this(0, NO_BITS, NO_VALUES, 1, 0, 0, 0, 0);
     }
 
     /**
      * Constructs a TimeSeries from a list of (timeValue,intValue)
-     * @param occurrences pairs of (timeValue,intValue) 
+     * <p>
+     * The list is not assumed to be sorted nor it is assumed that it contains unique elements;
+     * the intValues of pairs that share the same timeValue are summed. The list is left untouched.
+     * @param occurrences pairs of (timeValue,intValue)
      */
     protected TimeSeries(final List<Pair<Integer, Integer>> occurrences) {
-        this.occurrences = new ArrayList<Pair<Integer, Integer>>(occurrences.size());
-        this.setOccurrences(occurrences);
-    } 
-    
+        final long[] pairs = new long[occurrences.size()];
+
+        for (int i = 0; i < pairs.length; i++) {
+            final Pair<Integer, Integer> pair = occurrences.get(i);
+            pairs[i] = pack(pair.getFirst(), pair.getSecond());
+        }
+
+        Arrays.sort(pairs);
+
+        int size = 0;
+        final int[] times  = new int[pairs.length];
+        final int[] values = new int[pairs.length];
+
+        for (final long pair : pairs) {
+            final int time  = (int) (pair >> 32);
+            final int value = (int) pair;
+
+            if (size > 0 && times[size-1] == time) {
+                values[size-1] += value;
+            } else {
+                times[size]  = time;
+                values[size] = value;
+                size += 1;
+            }
+        }
+
+        this.baseTime = size == 0 ? 0 : times[0];
+        this.present  = bitmapOf(times, size);
+        this.width    = widthOf(values, size);
+        this.packed   = packedOf(values, size, width);
+        this.fromBit  = 0;
+        this.toBit    = size == 0 ? 0 : times[size-1] - times[0] + 1;
+        this.offset   = 0;
+        this.length   = size;
+    }
+
+    /**
+     * Constructs a TimeSeries over a window of the given storage; the storage is shared, not copied
+     * @param baseTime  the timeValue of the first bit of the bitmap
+     * @param present   the bitmap of the timeValues
+     * @param packed    the packed intValues, one per set bit of the bitmap
+     * @param width     the number of bytes of a packed intValue
+     * @param fromBit   the first bit of the window
+     * @param toBit     the bit right after the last bit of the window
+     * @param offset    the index of the first packed intValue of the window
+     * @param length    the number of pairs of the window
+     */
+    private TimeSeries(
+        final int baseTime, 
+        final long[] present, 
+        final byte[] packed, 
+        final int width, 
+        final int fromBit, 
+        final int toBit, 
+        final int offset, 
+        final int length
+    ) {
+        this.baseTime = baseTime;
+        this.present  = present;
+        this.packed   = packed;
+        this.width    = width;
+        this.fromBit  = fromBit;
+        this.toBit    = toBit;
+        this.offset   = offset;
+        this.length   = length;
+    }
+
+    /**
+     * Compresses the first pairs of two parallel arrays; the timeValues must be strictly increasing
+     */
+    final private static TimeSeries encode(final int[] timeValues, final int[] intValues, final int length) {
+        if (length == 0) return new TimeSeries();
+
+        final int width = widthOf(intValues, length);
+        return new TimeSeries(
+            timeValues[0], 
+            bitmapOf(timeValues, length), 
+            packedOf(intValues, length, width), 
+            width, 
+            0, 
+            timeValues[length-1] - timeValues[0] + 1, 
+            0, 
+            length
+        );
+    }
+
+    /**
+     * Returns the bitmap of strictly increasing timeValues, relative to the first one
+     */
+    final private static long[] bitmapOf(final int[] timeValues, final int length) {
+        if (length == 0) return NO_BITS;
+
+        final long[] bits = new long[((timeValues[length-1] - timeValues[0]) >>> 6) + 1];
+        for (int i = 0; i < length; i++) {
+            final int bit = timeValues[i] - timeValues[0];
+            bits[bit >>> 6] |= 1L << bit;
+        }
+        return bits;
+    }
+
+    /**
+     * Returns the smallest number of bytes, 1, 2 or 4, that holds all the intValues
+     */
+    final private static int widthOf(final int[] intValues, final int length) {
+        int width = 1;
+        for (int i = 0; i < length; i++) {
+            final int value = intValues[i];
+            if (value < 0 || value > 0xFFFF) return 4;
+            if (value > 0xFF) width = 2;
+        }
+        return width;
+    }
+
+    /**
+     * Packs the intValues big-endian, width bytes each
+     */
+    final private static byte[] packedOf(final int[] intValues, final int length, final int width) {
+        final byte[] bytes = new byte[length * width];
+        for (int i = 0; i < length; i++) {
+            final int value = intValues[i];
+            for (int b = 0; b < width; b++) bytes[i*width + b] = (byte) (value >>> (8 * (width - 1 - b)));
+        }
+        return bytes;
+    }
+
+    /**
+     * Packs a (timeValue,intValue) pair into a {@code long} that sorts by timeValue
+     */
+    final private static long pack(final int timeValue, final int intValue) {
+        return ((long) timeValue << 32) | (intValue & 0xFFFFFFFFL);
+    }
+
     /**
      * Returns the list of (timeValue,intValue) stored in the timeSeries
+     * <p>
+     * The list is an unmodifiable view that is built on the first call; the timeValues are decoded once then, 
+     * in a single pass, and the pairs are created on access.
      * @return the list of (timeValue,intValue) stored in the timeSeries
      */
     final public List<Pair<Integer, Integer>> getOccurrences() {
+        if (occurrences == null) occurrences = new OccurrencesView();
         return occurrences;
     }
-    
+
     /**
-     * Sets the occurrences from a list
+     * Returns the pair at the given index
+     * @param index     index of the pair to return
+     * @return          the pair at the given index
+     * @throws IndexOutOfBoundsException if the index is out of bounds
+     */
+    final public Pair<Integer, Integer> get(final int index) throws IndexOutOfBoundsException {
+        return Pair.create(yearAt(index), valueAt(index));
+    }
+
+    /**
+     * Returns the timeValue at the given index
      * <p>
-     * The list is not assumed to be sorted nor it is assumed that it contains unique elements.
-     * @param occurrences   a list of occurrences
-     */
-    final private void setOccurrences(final List<Pair<Integer, Integer>> occurrences) {
-        this.occurrences.clear();
-        
-        if (occurrences.size() == 0) return;
-        
-        occurrences.sort( Comparator.comparing(Pair::getFirst) );
-        
-        this.add(occurrences.get(0));
-        
-        for (int i=1; i<occurrences.size(); i++) {  
-            final Pair<Integer, Integer> pair = occurrences.get(i);
-            
-            int lastIndex = this.size()-1;
-            Pair<Integer, Integer> lastPair = this.get(lastIndex);
-            
-            if (lastPair.getFirst() != pair.getFirst() ) {
-                this.add(pair);
-            } else {
-                lastPair = Pair.create(pair.getFirst(), pair.getSecond()+lastPair.getSecond());
-                this.occurrences.set(lastIndex, lastPair);
-            }
+     * It selects the bit of the pair in the bitmap; prefer {@link #forEach(YearValueConsumer)} to visit all the pairs.
+     * @param index     index of the pair whose timeValue is returned
+     * @return          the timeValue at the given index
+     * @throws IndexOutOfBoundsException if the index is out of bounds
+     */
+    final public int yearAt(final int index) throws IndexOutOfBoundsException {
+        checkIndex(index);
+
+        int rank = index;
+        int word = fromBit >>> 6;
+        long bits = present[word] & (-1L << fromBit);
+
+        while (true) {
+            final int count = Long.bitCount(bits);
+            if (rank < count) break;
+            rank -= count;
+            bits = present[++word];
         }
+
+        for (; rank > 0; rank--) bits &= bits - 1;
+        return baseTime + (word << 6) + Long.numberOfTrailingZeros(bits);
     }
 
     /**
-     * Appends a pair to the timeSeries
-     * @param pair      a (timeValue, intValue) pair to be appended
-     * @return          <tt>true</tt> if the timeSeries changed as a result of the call
+     * Returns the intValue at the given index
+     * @param index     index of the pair whose intValue is returned
+     * @return          the intValue at the given index
+     * @throws IndexOutOfBoundsException if the index is out of bounds
      */
-    final private boolean add(final Pair<Integer, Integer> pair) {
-        return this.occurrences.add(pair);
+    final public int valueAt(final int index) throws IndexOutOfBoundsException {
+        checkIndex(index);
+        return unpack(offset + index);
     }
 
     /**
-     * Returns the pair at the given index
-     * @param index     index of the pair to return
-     * @return          the pair at the given index
+     * Reads the packed intValue at the given index of the storage
+     */
+    final private int unpack(final int index) {
+        switch (width) {
+            case 1:
+                return packed[index] & 0xFF;
+            case 2:
+                return (packed[2*index] & 0xFF) << 8 | (packed[2*index+1] & 0xFF);
+            default:
+                final int at = 4*index;
+                return packed[at] << 24 | (packed[at+1] & 0xFF) << 16 | (packed[at+2] & 0xFF) << 8 | (packed[at+3] & 0xFF);
+        }
+    }
+
+    /**
+     * Returns the first set bit of the window at or after the given bit
+     * @param bit   a bit of the window
+     * @return      the index of the set bit; toBit if there is none
+     */
+    final private int nextBit(final int bit) {
+        if (bit >= toBit) return toBit;
+
+        int word = bit >>> 6;
+        long bits = present[word] & (-1L << bit);
+
+        while (bits == 0) {
+            word += 1;
+            if (word << 6 >= toBit) return toBit;
+            bits = present[word];
+        }
+
+        return Math.min(toBit, (word << 6) + Long.numberOfTrailingZeros(bits));
+    }
+
+    /**
+     * Counts the set bits in the range [from, to) of the bitmap
+     */
+    final private int rank(final int from, final int to) {
+        if (from >= to) return 0;
+
+        final int firstWord = from >>> 6;
+        final int lastWord  = (to - 1) >>> 6;
+        final long lastMask = -1L >>> (63 - ((to - 1) & 63));
+
+        if (firstWord == lastWord) return Long.bitCount(present[firstWord] & (-1L << from) & lastMask);
+
+        int count = Long.bitCount(present[firstWord] & (-1L << from));
+        for (int word = firstWord + 1; word < lastWord; word++) count += Long.bitCount(present[word]);
+        return count + Long.bitCount(present[lastWord] & lastMask);
+    }
+
+    /**
+     * Hands every (timeValue,intValue) pair to a consumer, in increasing timeValue order
+     * <p>
+     * The pairs are decoded from the compressed storage in a single pass.
+     * @param consumer  receives the pairs
+     */
+    final public void forEach(final YearValueConsumer consumer) {
+        int bit = fromBit;
+        for (int i = 0; i < length; i++) {
+            bit = nextBit(bit);
+            consumer.accept(baseTime + bit, unpack(offset + i));
+            bit += 1;
+        }
+    }
+
+    /**
+     * Checks that an index of the timeSeries is in bounds
      * @throws IndexOutOfBoundsException if the index is out of bounds
      */
-    final public Pair<Integer, Integer> get(final int index) throws IndexOutOfBoundsException {
-        return this.occurrences.get(index);
+    final private void checkIndex(final int index) throws IndexOutOfBoundsException {
+        if (index < 0 || index >= length) 
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + length);
     }
 
-    /** 
+    /**
      * Returns the number of pairs in the timeSeries
      * @return the number of pairs in the timeSeries
      */
     final public int size() {
-        return this.occurrences.size();
+        return length;
+    }
+
+    /**
+     * Returns an estimate of the memory held by the pairs: the words of the bitmap that cover the span of the
+     * timeSeries, its packed intValues and the headers of the object and its arrays
+     * <p>
+     * A window counts the part of the shared storage that it covers, not the whole storage. The boxed pairs of
+     * {@link #getOccurrences()} and the timeValues that its view decodes are not counted.
+     * @return the estimated number of bytes
+     */
+    final public long sizeInBytes() {
+        final long words = toBit > fromBit ? ((toBit - 1) >>> 6) - (fromBit >>> 6) + 1 : 0;
+        return OVERHEAD_BYTES + words * Long.BYTES + (long) length * width;
     }
 
     /**
      * Construct a new timeSeries for the window (lowTimeValue, highTimeValue)
-     * 
+     * <p>
+     * The bounds of the window are found on the bitmap and the result shares the storage of this timeSeries.
+     *
      * @param lowTimeValue      the low time value
      * @param highTimeValue     the high time value; it must be greater or equal to lowTimeValue
      * @return                  a new timeSeries containing the result
@@ -106,42 +369,170 @@ final public class TimeSeries {
     final TimeSeries filter(final int lowTimeValue, final int highTimeValue) throws IllegalArgumentException {
         if (lowTimeValue > highTimeValue) throw new IllegalArgumentException("lowTimeValue must be smaller than highTimeValue");
 
-        final TimeSeries result = new TimeSeries();
+        final int low  = (int) Math.max(fromBit, Math.min(toBit, (long) lowTimeValue - baseTime));
+        final int high = (int) Math.max(low, Math.min(toBit, (long) highTimeValue - baseTime + 1));
 
-        for ( Pair<Integer, Integer> pair : this.occurrences ) {
-            if (pair.getFirst() <= highTimeValue) {
-                if (pair.getFirst() >= lowTimeValue) 
-                    result.add(pair);
-            } else 
-                break;
+        return new TimeSeries(
+            baseTime, present, packed, width, low, high, offset + rank(fromBit, low), rank(low, high)
+        );
+    }
+
+    /**
+     * Sums timeSeries pair by pair; the intValues of the pairs that share the same timeValue are added
+     * @param timeSeries    the timeSeries to sum
+     * @return              a new timeSeries with the sums
+     */
+    final static TimeSeries sum(final Collection<TimeSeries> timeSeries) {
+        int first = Integer.MAX_VALUE;
+        int last  = Integer.MIN_VALUE;
+
+        for (final TimeSeries series : timeSeries) {
+            if (series.length == 0) continue;
+            first = Math.min(first, series.baseTime + series.nextBit(series.fromBit));
+            last  = Math.max(last, series.yearAt(series.length-1));
         }
 
-        return result;
+        if (first > last) return new TimeSeries();
+
+        final int origin = first;
+        final int span = last - first + 1;
+        final int[] sums = new int[span];
+        final boolean[] present = new boolean[span];
+
+        for (final TimeSeries series : timeSeries) {
+            series.forEach((time, value) -> {
+                sums[time-origin]   += value;
+                present[time-origin] = true;
+            });
+        }
+
+        int size = 0;
+        final int[] times  = new int[span];
+        final int[] values = new int[span];
+
+        for (int i = 0; i < span; i++) {
+            if (!present[i]) continue;
+            times[size]  = first+i;
+            values[size] = sums[i];
+            size += 1;
+        }
+
+        return encode(times, values, size);
+    }
+
+    /**
+     * Generates a timeSeries from the first pairs of two parallel arrays; the arrays are copied
+     * @param timeValues    the timeValues, strictly increasing
+     * @param intValues     the intValue of each timeValue
+     * @param length        the number of pairs to use
+     * @throws IllegalArgumentException if the timeValues are not strictly increasing
+     */
+    final static TimeSeries of(final int[] timeValues, final int[] intValues, final int length) throws IllegalArgumentException {
+        for (int i = 1; i < length; i++) 
+            if (timeValues[i-1] >= timeValues[i]) throw new IllegalArgumentException("The timeValues must be strictly increasing");
+
+        return encode(timeValues, intValues, length);
     }
-    
+
     /**
      * Generates a timeSeries from a list of {@Strings} containing numbers.
      * <p>
      * An empty string is treated as a zero value.
-     * 
+     *
      * @param occurrences       a list of {@Strings} containing numbers
      * @param offsetTime        all the timeValues are offset by this much
      * @throws NumberFormatException if one of the values is not a positive number or an empty string
      */
     final static TimeSeries parse(final List<String> occurrences, final int offsetTime) throws NumberFormatException {
-        final List<Pair<Integer,Integer>> nonZeroOccurrences = new ArrayList<>();
+        int size = 0;
+        final int[] times  = new int[occurrences.size()];
+        final int[] values = new int[occurrences.size()];
 
         for ( int i = 0; i < occurrences.size(); i++) {
             final String value = occurrences.get(i);
-            if (!value.isEmpty()) 
-                nonZeroOccurrences.add( Pair.create(offsetTime+i, Integer.parseUnsignedInt(value)) );
+            if (!value.isEmpty()) {
+                times[size]  = offsetTime+i;
+                values[size] = Integer.parseUnsignedInt(value);
+                size += 1;
+            }
+        }
+
+        return encode(times, values, size);
+    }
+
+    /**
+     * Two timeSeries are equal when they hold the same (timeValue,intValue) pairs
+     */
+    @Override
+    final public boolean equals(final Object other) {
+        if (this == other) return true;
+        if (!(other instanceof TimeSeries)) return false;
+
+        final TimeSeries that = (TimeSeries) other;
+        if (length != that.length || hashCode() != that.hashCode()) return false;
+
+        int bit = fromBit;
+        int thatBit = that.fromBit;
+        for (int i = 0; i < length; i++) {
+            bit = nextBit(bit);
+            thatBit = that.nextBit(thatBit);
+            if (baseTime + bit != that.baseTime + thatBit) return false;
+            if (unpack(offset + i) != that.unpack(that.offset + i)) return false;
+            bit += 1;
+            thatBit += 1;
         }
-        
-        return new TimeSeries(nonZeroOccurrences);
+        return true;
+    }
+
+    /**
+     * Returns a hash of the (timeValue,intValue) pairs; it is computed on the first call and then cached
+     */
+    @Override
+    final public int hashCode() {
+        int result = hash;
+        if (result == 0) {
+            result = 1;
+            int bit = fromBit;
+            for (int i = 0; i < length; i++) {
+                bit = nextBit(bit);
+                result = 31 * (31 * result + baseTime + bit) + unpack(offset + i);
+                bit += 1;
+            }
+            hash = result;
+        }
+        return result;
     }
 
     @Override
     final public String toString() {
-        return occurrences.toString();
+        return getOccurrences().toString();
+    }
+
+    /**
+     * A read-only {@code List} view of the timeSeries as (timeValue,intValue) pairs
+     */
+    final private class OccurrencesView extends AbstractList<Pair<Integer, Integer>> implements RandomAccess {
+        // the timeValues, decoded in a single pass so that get does not select a bit per call
+        final private int[] years = new int[length];
+
+        OccurrencesView() {
+            int bit = fromBit;
+            for (int i = 0; i < length; i++) {
+                bit = nextBit(bit);
+                years[i] = baseTime + bit;
+                bit += 1;
+            }
+        }
+
+        @Override
+        public Pair<Integer, Integer> get(final int index) {
+            checkIndex(index);
+            return Pair.create(years[index], unpack(offset + index));
+        }
+
+        @Override
+        public int size() {
+            return TimeSeries.this.size();
+        }
     }
 }
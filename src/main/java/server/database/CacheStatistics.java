@@ -0,0 +1,44 @@
+package server.database;
+
+
+/**
+ * An immutable snapshot of the counters of the query cache of a database
+ */
+final public class CacheStatistics {
+    final private long hits;
+    final private long misses;
+    final private int size;
+
+    CacheStatistics(final long hits, final long misses, final int size) {
+        this.hits = hits;
+        this.misses = misses;
+        this.size = size;
+    }
+
+    /**
+     * Returns the number of lookups that were served from the cache
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of lookups that had to compute their result, because it was never cached, was evicted or
+     * was computed from a row that has since been replaced
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Returns the number of cached results
+     */
+    public int getSize() {
+        return size;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("hits=%d, misses=%d, size=%d", hits, misses, size);
+    }
+}
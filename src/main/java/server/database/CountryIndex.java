@@ -0,0 +1,75 @@
+package server.database;
+
+
+import java.text.Normalizer;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+import server.commons.Country;
+
+
+/**
+ * An index that resolves the many ways a client may name a country to the country itself
+ * <p>
+ * A country is reachable by its long name, its iso2 and its iso3 identifiers, both as they are and in a normalized
+ * form that ignores case, accents and extra whitespace; e.g. "gr", "GRC" and "greece" all resolve to Greece and
+ * "cote d'ivoire" resolves to "C&ocirc;te d'Ivoire". Every resolution is a hash lookup, preceded by the normalization of
+ * the name when it is not found verbatim. When two countries share a key, the first indexed one keeps it.
+ */
+final class CountryIndex {
+    final private static Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    final private static Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    final private HashMap<String, Country> countries;
+
+    /**
+     * Constructs an empty index
+     */
+    CountryIndex() {
+        this.countries = new HashMap<>();
+    }
+
+    /**
+     * Constructs an independent copy of another index
+     * @param other     the index to copy
+     */
+    CountryIndex(final CountryIndex other) {
+        this.countries = new HashMap<>(other.countries);
+    }
+
+    /**
+     * Adds a country to the index under its long name, iso2 and iso3 identifiers
+     * @param country   the country to index
+     */
+    final void add(final Country country) {
+        for (final String key : new String[] {country.getLongName(), country.getIso2(), country.getIso3()}) {
+            if (key == null || key.isEmpty()) continue;
+            countries.putIfAbsent(key, country);
+            countries.putIfAbsent(normalize(key), country);
+        }
+    }
+
+    /**
+     * Resolves a name to an indexed country
+     * @param name  a long name, an iso2 or an iso3 identifier, in any case and with or without accents
+     * @return      the country; empty if no indexed country goes by that name
+     */
+    final Optional<Country> resolve(final String name) {
+        final Country country = countries.get(name);
+        if (country != null) return Optional.of(country);
+        return Optional.ofNullable(countries.get(normalize(name)));
+    }
+
+    /**
+     * Folds a name to lower case without accents and with single spaces between its words
+     * @param name  a name
+     * @return      the normalized name
+     */
+    final static String normalize(final String name) {
+        final String decomposed = Normalizer.normalize(name, Normalizer.Form.NFD);
+        final String unaccented = COMBINING_MARKS.matcher(decomposed).replaceAll("");
+        return WHITESPACE.matcher(unaccented.trim()).replaceAll(" ").toLowerCase(Locale.ROOT);
+    }
+}
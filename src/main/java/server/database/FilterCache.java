@@ -0,0 +1,124 @@
+package server.database;
+
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import server.commons.NaturalDisaster;
+
+
+/**
+ * A thread-safe cache of the year-range filters of the rows of a database
+ * <p>
+ * An entry is keyed by the country and type ordinals of a row and by the year range, and holds the filtered row
+ * along with the row it was filtered from. Since a filtered row computes and caches its analytics on first use,
+ * every request for the same range shares both the filtered measurements and their analytics. An entry is only
+ * served while its source is still the row of the database, so replacing a row invalidates all of its entries;
+ * the cache can thus be shared by all the versions of a database. The least recently used entries are evicted
+ * once the cache is full.
+ */
+final class FilterCache {
+    final static int DEFAULT_CAPACITY = 4096;
+
+    /**
+     * The key of a cached filter
+     */
+    final private static class Key {
+        final private int country;
+        final private int type;
+        final private int startYear;
+        final private int endYear;
+
+        Key(final int country, final int type, final int startYear, final int endYear) {
+            this.country = country;
+            this.type = type;
+            this.startYear = startYear;
+            this.endYear = endYear;
+        }
+
+        @Override
+        public boolean equals(final Object other) {
+            if (!(other instanceof Key)) return false;
+            final Key key = (Key) other;
+            return country == key.country && type == key.type && startYear == key.startYear && endYear == key.endYear;
+        }
+
+        @Override
+        public int hashCode() {
+            return ((country * 31 + type) * 31 + startYear) * 31 + endYear;
+        }
+    }
+
+    /**
+     * A filtered row and the row it was filtered from
+     */
+    final private static class Filtered {
+        final private NaturalDisaster source;
+        final private NaturalDisaster filtered;
+
+        Filtered(final NaturalDisaster source, final NaturalDisaster filtered) {
+            this.source = source;
+            this.filtered = filtered;
+        }
+    }
+
+    final private LinkedHashMap<Key, Filtered> entries;
+    final private LongAdder hits = new LongAdder();
+    final private LongAdder misses = new LongAdder();
+
+    /**
+     * Constructs an empty cache
+     * @param capacity  the maximum number of cached filters
+     */
+    FilterCache(final int capacity) {
+        this.entries = new LinkedHashMap<Key, Filtered>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Key, Filtered> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Returns a row filtered to a year range, filtering it only if it is not cached
+     * @param row           a row of the database, with an interned country and type
+     * @param startYear     the start year
+     * @param endYear       the end year
+     * @return              the filtered row
+     * @throws IllegalArgumentException if the startYear is greater than the endYear
+     */
+    final NaturalDisaster filter(final NaturalDisaster row, final int startYear, final int endYear) throws IllegalArgumentException {
+        final Key key = new Key(row.getCountry().getOrdinal(), row.getType().getOrdinal(), startYear, endYear);
+
+        final Filtered cached;
+        synchronized (entries) {
+            cached = entries.get(key);
+        }
+        if (cached != null && cached.source == row) {
+            hits.increment();
+            return cached.filtered;
+        }
+
+        misses.increment();
+        final NaturalDisaster filtered = row.filter(startYear, endYear);
+        synchronized (entries) {
+            entries.put(key, new Filtered(row, filtered));
+        }
+        return filtered;
+    }
+
+    /**
+     * Returns the current counters of the cache
+     * @return the current counters of the cache
+     */
+    final CacheStatistics statistics() {
+        final int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+        return new CacheStatistics(hits.sum(), misses.sum(), size);
+    }
+}
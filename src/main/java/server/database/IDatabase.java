@@ -2,9 +2,15 @@ package server.database;
 
 
 import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 import dom2app.ISingleMeasureRequest;
 
+import server.analysis.AnalyticsTable;
+import server.analysis.RangeStatistics;
+import server.analysis.RankingCriterion;
+
 import server.commons.NaturalDisaster;
 
 
@@ -12,6 +18,18 @@ import server.commons.NaturalDisaster;
  * A simple interface for a database 
  */
 public interface IDatabase {
+
+    /**
+     * The outcome of an {@link IDatabase#upsert}
+     */
+    public enum Change {
+        /** the entry had no counterpart and was added */
+        INSERTED, 
+        /** the entry replaced a counterpart that held different data */
+        UPDATED, 
+        /** a counterpart with the same data was already there and was kept */
+        UNCHANGED
+    }
     
     /**
      * Adds a {@code IMeasurementVector} record to the database
@@ -31,6 +49,39 @@ public interface IDatabase {
      */
     public IDatabase addAll(final Collection<NaturalDisaster> entries);
 
+    /**
+     * Adds a {@code IMeasurementVector} record to the database or replaces the record with the same country and type
+     * <p>
+     * A record that holds the same data as the new one is kept, along with the analytics it has already computed;
+     * the new record is then discarded. Records are never removed.
+     * @param entry     an {@code IMeasurementVector}
+     * @return          whether the record was inserted, updated or left unchanged
+     */
+    public Change upsert(final NaturalDisaster entry);
+
+    /**
+     * Returns an independent copy of the database
+     * <p>
+     * Modifying the copy leaves the original untouched; it lets a new version of the database be prepared while 
+     * the current one keeps serving requests.
+     * @return  a copy of the database
+     */
+    public IDatabase copy();
+
+    /**
+     * Returns all the records of the database
+     * @return  a read-only view of the records, in insertion order
+     */
+    public List<NaturalDisaster> entries();
+
+    /**
+     * Returns the counters of the cache that serves repeated year-range requests
+     * <p>
+     * The cache may be shared with the copies of the database.
+     * @return  the current counters of the cache
+     */
+    public CacheStatistics cacheStatistics();
+
     /**
      * Creates a request to the database with the specified information
      * @param requestName
@@ -57,4 +108,117 @@ public interface IDatabase {
         final int startYear, 
         final int endYear
     ) throws IllegalArgumentException;
+
+    /**
+     * Computes the statistics of a record over a year window, without filtering its measurements
+     * <p>
+     * It is the fast path of {@link #request(String, String, String, int, int)} for clients that only need the 
+     * totals, the means, the variance or the slope of the window: they are answered in constant time from the 
+     * prefix sums of the record, see {@code RangeIndex}.
+     * @param countryName
+     * @param disasterType
+     * @param startYear
+     * @param endYear
+     * @return the statistics of the window; empty if there is no such record
+     * @throws IllegalArgumentException if the startYear is greater than the endYear
+     */
+    public Optional<RangeStatistics> rangeStatistics(
+        final String countryName,
+        final String disasterType,
+        final int startYear,
+        final int endYear
+    ) throws IllegalArgumentException;
+
+    /**
+     * Computes the statistics and the regression of every record over a year window, in one batch
+     * @param startYear
+     * @param endYear
+     * @return the table of the records, in insertion order; see {@code AnalyticsTable}
+     * @throws IllegalArgumentException if the startYear is greater than the endYear
+     */
+    public AnalyticsTable<NaturalDisaster> analyticsTable(final int startYear, final int endYear) throws IllegalArgumentException;
+
+    /**
+     * Ranks the records by a criterion computed over a year window and returns the k best ones
+     * @param disasterType  the disaster type of the records to rank; null to rank the records of every type but {@code TOTAL}
+     * @param criterion     the criterion to rank by; higher scores rank first
+     * @param k             the maximum number of records to return
+     * @param startYear
+     * @param endYear
+     * @return the best records filtered to the window, from the best to the worst; records whose score is not 
+     *         defined over the window are left out, and an unknown disaster type yields no records
+     * @throws IllegalArgumentException if k is not positive or the startYear is greater than the endYear
+     */
+    public List<NaturalDisaster> topRanked(
+        final String disasterType,
+        final RankingCriterion criterion,
+        final int k,
+        final int startYear,
+        final int endYear
+    ) throws IllegalArgumentException;
+
+    /**
+     * Creates a request whose answer sums the measurements of a record into buckets of consecutive years
+     * <p>
+     * Buckets are aligned to multiples of their width and labeled by their first year; empty buckets are left out.
+     * See {@code Resampler}.
+     * @param requestName
+     * @param countryName
+     * @param disasterType
+     * @param width         the number of years of a bucket, e.g. 10 for decades
+     * @return the request
+     * @throws IllegalArgumentException if the width is not positive
+     */
+    public ISingleMeasureRequest requestBuckets(
+        final String requestName, 
+        final String countryName, 
+        final String disasterType, 
+        final int width
+    ) throws IllegalArgumentException;
+
+    /**
+     * Creates a request whose answer holds the rolling sums of the measurements of a record
+     * <p>
+     * The sum of a year covers the trailing window of the given width that ends with it; windows without
+     * measurements are left out. See {@code Resampler}.
+     * @param requestName
+     * @param countryName
+     * @param disasterType
+     * @param width         the number of years of a window
+     * @return the request
+     * @throws IllegalArgumentException if the width is not positive
+     */
+    public ISingleMeasureRequest requestRollingSums(
+        final String requestName, 
+        final String countryName, 
+        final String disasterType, 
+        final int width
+    ) throws IllegalArgumentException;
+
+    /**
+     * Creates a request for the yearly totals of all the disaster types of a country
+     * <p>
+     * The {@code TOTAL} rows are left out of the sum since they already add up the other types.
+     * @param requestName
+     * @param countryName
+     * @return the request; it is unanswered if the country is unknown
+     */
+    public ISingleMeasureRequest requestCountryAggregate(final String requestName, final String countryName);
+
+    /**
+     * Creates a request for the yearly totals of a disaster type across all the countries
+     * @param requestName
+     * @param disasterType
+     * @return the request; it is unanswered if the disaster type is unknown
+     */
+    public ISingleMeasureRequest requestTypeAggregate(final String requestName, final String disasterType);
+
+    /**
+     * Creates a request for the yearly totals of all the disaster types across all the countries
+     * <p>
+     * The {@code TOTAL} rows are left out of the sum since they already add up the other types.
+     * @param requestName
+     * @return the request; it is unanswered if the database is empty
+     */
+    public ISingleMeasureRequest requestGlobalAggregate(final String requestName);
 }
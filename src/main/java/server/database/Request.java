@@ -17,18 +17,27 @@ final class Request implements ISingleMeasureRequest {
     final private String country;
     final private String type;
     final private Optional<NaturalDisaster> answer; 
+    final private String resampling;
 
     /**
      * Constructs a new request with the specified information
      * @param name          the name of the request
      * @param country       the name of the country in the request
      * @param type          the type of the disaster in the request
+     * @param resampling    a description of the resampling of the answer; null if it is not resampled
      */
-    private Request(final String name, final String country, final String type, final Optional<NaturalDisaster> disaster) {
+    private Request(
+        final String name, 
+        final String country, 
+        final String type, 
+        final Optional<NaturalDisaster> disaster, 
+        final String resampling
+    ) {
         this.name = name;
         this.country = country;
         this.type = type;
         this.answer = disaster;
+        this.resampling = resampling;
     }
 
     /**
@@ -40,7 +49,26 @@ final class Request implements ISingleMeasureRequest {
      * @return the new Request instance
      */
     protected static Request create(final String name, final String country, final String type, final Optional<NaturalDisaster> disaster) {
-        return new Request(name, country, type, disaster);
+        return new Request(name, country, type, disaster, null);
+    }
+
+    /**
+     * Creates a new instance of a Request whose answer is resampled
+     * @param name
+     * @param country
+     * @param type
+     * @param disaster
+     * @param resampling    a description of the resampling, e.g. "5-year buckets"
+     * @return the new Request instance
+     */
+    protected static Request create(
+        final String name, 
+        final String country, 
+        final String type, 
+        final Optional<NaturalDisaster> disaster, 
+        final String resampling
+    ) {
+        return new Request(name, country, type, disaster, resampling);
     }
 
     @Override
@@ -49,11 +77,12 @@ final class Request implements ISingleMeasureRequest {
     }
 
     /**
-     * @return "Country ~ %s | Indicator : %s"
+     * @return "Country ~ %s | Indicator : %s", followed by " | %s" with the resampling of a resampled request
      */
     @Override
     public String getRequestFilter() {
-        return String.format("Country ~ %s | Indicator : %s", country, type);
+        final String filter = String.format("Country ~ %s | Indicator : %s", country, type);
+        return resampling == null ? filter : filter + " | " + resampling;
     }
 
     @Override
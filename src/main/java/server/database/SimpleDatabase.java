@@ -1,63 +1,187 @@
 package server.database;
 
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
-import java.util.HashMap;
-import java.util.LinkedHashMap;
 import java.util.stream.Collectors;
 
-import org.apache.commons.math3.util.Pair;
-
-import dom2app.IMeasurementVector;
 import dom2app.ISingleMeasureRequest;
 
+import server.analysis.AnalyticsTable;
+import server.analysis.RangeStatistics;
+import server.analysis.RankingCriterion;
+import server.analysis.Resampler;
+import server.analysis.TopK;
+
+import server.commons.Country;
+import server.commons.DisasterType;
 import server.commons.NaturalDisaster;
 
 
 /**
  * A very simple database
+ * <p>
+ * The entries are stored in a flat array, in the slot {@code ordinal(country) * stride + ordinal(type)}, so a 
+ * lookup resolves the interned country and type and reads a single slot without allocating a key. The entries
+ * of a country are thus contiguous; the database also keeps the entries of every disaster type, so that an 
+ * aggregate request only visits the matching entries.
+ * <p>
+ * Countries can be requested by long name, iso2 or iso3 identifier, ignoring case and accents; see {@code CountryIndex}.
+ * <p>
+ * Next to every slot the database keeps the position of the entry in the insertion-ordered and in the per-type
+ * lists, so that {@link #upsert} replaces an entry in constant time.
+ * <p>
+ * The filtered entries of the year-range requests are cached, see {@code FilterCache}, so repeated requests for
+ * the same range share the filtered measurements and their analytics.
  */
 final class SimpleDatabase implements IDatabase {
 
-    final private HashMap<Pair<String, String>, NaturalDisaster> entries = new LinkedHashMap<>();
-    
+    final private static ThreadLocal<Resampler> RESAMPLERS = ThreadLocal.withInitial(Resampler::new);
+
+    final private List<NaturalDisaster> entries;
+    final private List<List<NaturalDisaster>> entriesByType;
+    final private CountryIndex countryIndex;
+    final private FilterCache filterCache;
+    private NaturalDisaster[] slots = new NaturalDisaster[0];
+    private int[] positions = new int[0];
+    private int[] typePositions = new int[0];
+    private int stride = 8;
+
+    /**
+     * Constructs an empty database
+     */
+    SimpleDatabase() {
+        this.entries = new ArrayList<>();
+        this.entriesByType = new ArrayList<>();
+        this.countryIndex = new CountryIndex();
+        this.filterCache = new FilterCache(FilterCache.DEFAULT_CAPACITY);
+    }
+
     /**
-     * Produces a key for accessing the database 
-     * @param country           a countryLongName
-     * @param disasterType      a disasterType
-     * @return the key
+     * Constructs an independent copy of another database; the entries themselves are immutable and thus shared, and
+     * so is the cache of the filtered entries since it never serves the filters of a replaced entry
+     * @param other     the database to copy
      */
-    final private static Pair<String, String> generateKey(String country, String disasterType) {
-        return Pair.create(country, disasterType);
+    private SimpleDatabase(final SimpleDatabase other) {
+        this.entries = new ArrayList<>(other.entries);
+        this.entriesByType = new ArrayList<>(other.entriesByType.size());
+        other.entriesByType.forEach(typeEntries -> this.entriesByType.add(new ArrayList<>(typeEntries)));
+        this.countryIndex = new CountryIndex(other.countryIndex);
+        this.filterCache = other.filterCache;
+        this.slots = other.slots.clone();
+        this.positions = other.positions.clone();
+        this.typePositions = other.typePositions.clone();
+        this.stride = other.stride;
     }
 
     /**
-     * Produces a key for accessing the database 
-     * @param disaster
-     * @return the key
+     * Returns the entry with the given country and type ordinals
+     * @param country   the ordinal of a country
+     * @param type      the ordinal of a disaster type
+     * @return          the entry; null if there is none
      */
-    final private static Pair<String, String> generateKey(IMeasurementVector disaster) {
-        return generateKey(disaster.getCountryName(), disaster.getIndicatorString());
+    final private NaturalDisaster get(final int country, final int type) {
+        if (type >= stride) return null;
+        final int slot = country * stride + type;
+        return slot < slots.length ? slots[slot] : null;
+    }
+
+    /**
+     * Grows the slots, and widens the rows if needed, so that they can hold the given country and type ordinals
+     * @param country   the ordinal of a country
+     * @param type      the ordinal of a disaster type
+     */
+    final private void ensureCapacity(final int country, final int type) {
+        if (type >= stride) {
+            final int newStride = Math.max(2*stride, type+1);
+            final int rows = slots.length / stride;
+            final NaturalDisaster[] newSlots = new NaturalDisaster[rows * newStride];
+            final int[] newPositions = new int[rows * newStride];
+            final int[] newTypePositions = new int[rows * newStride];
+            for (int row = 0; row < rows; row++) {
+                System.arraycopy(slots, row*stride, newSlots, row*newStride, stride);
+                System.arraycopy(positions, row*stride, newPositions, row*newStride, stride);
+                System.arraycopy(typePositions, row*stride, newTypePositions, row*newStride, stride);
+            }
+            slots  = newSlots;
+            positions = newPositions;
+            typePositions = newTypePositions;
+            stride = newStride;
+        }
+
+        final int required = (country+1) * stride;
+        if (required > slots.length) {
+            final int capacity = Math.max(required, 2*slots.length);
+            slots = Arrays.copyOf(slots, capacity);
+            positions = Arrays.copyOf(positions, capacity);
+            typePositions = Arrays.copyOf(typePositions, capacity);
+        }
     }
 
     /**
      * @throws UnsupportedOperationException if there exists another object in the database with the same key
+     * @throws IllegalArgumentException if the country or the type of the entry is not interned
      */
     @Override
-    final public SimpleDatabase add(final NaturalDisaster entry) throws UnsupportedOperationException {
-        final Pair<String, String> key = generateKey(entry);
+    final public SimpleDatabase add(final NaturalDisaster entry) throws UnsupportedOperationException, IllegalArgumentException {
+        final int country = entry.getCountry().getOrdinal();
+        final int type    = entry.getType().getOrdinal();
+
+        if (country < 0 || type < 0) 
+            throw new IllegalArgumentException("Only entries with an interned country and type can be added to the database");
 
-        if (this.entries.containsKey(key)) 
+        if (get(country, type) != null) 
             throw new UnsupportedOperationException(
                 "There is already another entry with the same key in the database. Adding the entry is disallowed"
             );
 
-        this.entries.put(key, entry);
+        ensureCapacity(country, type);
+        while (entriesByType.size() <= type) entriesByType.add(new ArrayList<>());
+
+        final int slot = country * stride + type;
+        this.slots[slot] = entry;
+        this.positions[slot] = entries.size();
+        this.typePositions[slot] = entriesByType.get(type).size();
+
+        this.entries.add(entry);
+        this.entriesByType.get(type).add(entry);
+        this.countryIndex.add(entry.getCountry());
 
         return this;
     }
 
+    /**
+     * @throws IllegalArgumentException if the country or the type of the entry is not interned
+     */
+    @Override
+    final public Change upsert(final NaturalDisaster entry) throws IllegalArgumentException {
+        final int country = entry.getCountry().getOrdinal();
+        final int type    = entry.getType().getOrdinal();
+
+        if (country < 0 || type < 0) 
+            throw new IllegalArgumentException("Only entries with an interned country and type can be added to the database");
+
+        final NaturalDisaster existing = get(country, type);
+
+        if (existing == null) {
+            add(entry);
+            return Change.INSERTED;
+        }
+
+        if (existing.hasSameContent(entry)) return Change.UNCHANGED;
+
+        final int slot = country * stride + type;
+        this.slots[slot] = entry;
+        this.entries.set(positions[slot], entry);
+        this.entriesByType.get(type).set(typePositions[slot], entry);
+
+        return Change.UPDATED;
+    }
+
     /**
      * @throws UnsupportedOperationException whenever {@link #add} throws an exception
      */
@@ -67,16 +191,34 @@ final class SimpleDatabase implements IDatabase {
         return this;
     }
 
+    @Override
+    final public SimpleDatabase copy() {
+        return new SimpleDatabase(this);
+    }
+
+    @Override
+    final public List<NaturalDisaster> entries() {
+        return Collections.unmodifiableList(entries);
+    }
+
+    @Override
+    final public CacheStatistics cacheStatistics() {
+        return filterCache.statistics();
+    }
+
     /**
      * Gets a {@code IMeasurementVector} record that match the information provided
-     * @param countryName       the country long name
+     * @param countryName       the country long name, iso2 or iso3 identifier
      * @param disasterType      the disaster type
      * @return                  an optional of the {@code IMeasurementVector} 
      */
     final private Optional<NaturalDisaster> retrieve(final String countryName, final String disasterType) {
-        return Optional.ofNullable(
-            entries.get(generateKey(countryName, disasterType))
-        );
+        final Optional<Country> country = countryIndex.resolve(countryName);
+        final Optional<DisasterType> type = DisasterType.forName(disasterType);
+
+        if (!country.isPresent() || !type.isPresent()) return Optional.empty();
+
+        return Optional.ofNullable(get(country.get().getOrdinal(), type.get().getOrdinal()));
     }
 
     @Override
@@ -88,9 +230,10 @@ final class SimpleDatabase implements IDatabase {
     /** 
      * Gets a filtered {@code IMeasurementVector} record that match the information provided
      * <p>
-     * The records that have been filtered contain the values in the inclusive range (startYear, endYear).
+     * The records that have been filtered contain the values in the inclusive range (startYear, endYear); they
+     * are served from the cache of the database when the same range of the same record was requested before.
      * 
-     * @param countryName   the long name of the country
+     * @param countryName   the long name, iso2 or iso3 identifier of the country
      * @param disasterType  the type of the disaster
      * @param startYear     the start year
      * @param endYear       the end year
@@ -104,7 +247,7 @@ final class SimpleDatabase implements IDatabase {
         final int endYear
     ) throws IllegalArgumentException {
         return retrieve(countryName,disasterType)
-                    .map(disaster->disaster.filter(startYear, endYear));
+                    .map(disaster->filterCache.filter(disaster, startYear, endYear));
     }
 
     @Override
@@ -119,9 +262,183 @@ final class SimpleDatabase implements IDatabase {
         return Request.create(requestName, countryName, disasterType, disaster);
     }
 
+    /**
+     * @throws IllegalArgumentException if the startYear is greater than the endYear
+     */
+    @Override
+    public Optional<RangeStatistics> rangeStatistics(
+        final String countryName, 
+        final String disasterType, 
+        final int startYear, 
+        final int endYear
+    ) throws IllegalArgumentException {
+        if (startYear > endYear) throw new IllegalArgumentException("startYear must be smaller than endYear");
+        return retrieve(countryName, disasterType).map(disaster -> disaster.getRangeIndex().statistics(startYear, endYear));
+    }
+
+    /**
+     * @throws IllegalArgumentException if the startYear is greater than the endYear
+     */
+    @Override
+    public AnalyticsTable<NaturalDisaster> analyticsTable(final int startYear, final int endYear) throws IllegalArgumentException {
+        return AnalyticsTable.compute(entries, NaturalDisaster::getTimeSeries, startYear, endYear);
+    }
+
+    /**
+     * The scores are computed in constant time from the cached range index of every entry, and only the k best
+     * entries are kept and filtered; see {@code TopK}. The filtered entries bypass the cache of the year-range
+     * requests, so a ranking neither evicts nor counts towards the ranges that were actually requested.
+     * @throws IllegalArgumentException if k is not positive or the startYear is greater than the endYear
+     */
+    @Override
+    public List<NaturalDisaster> topRanked(
+        final String disasterType,
+        final RankingCriterion criterion,
+        final int k,
+        final int startYear,
+        final int endYear
+    ) throws IllegalArgumentException {
+        if (startYear > endYear) throw new IllegalArgumentException("startYear must be smaller than endYear");
+
+        final List<NaturalDisaster> candidates;
+        if (disasterType == null) {
+            candidates = entries.stream().filter(disaster -> !disaster.getType().isTotal()).collect(Collectors.toList());
+        } else {
+            candidates = DisasterType.forName(disasterType).map(this::entriesOf).orElse(Collections.emptyList());
+        }
+
+        final List<NaturalDisaster> best = TopK.select(
+            candidates, 
+            disaster -> criterion.score(disaster.getRangeIndex().statistics(startYear, endYear)), 
+            k
+        );
+        return best.stream().map(disaster -> disaster.filter(startYear, endYear)).collect(Collectors.toList());
+    }
+
+    /**
+     * @throws IllegalArgumentException if the width is not positive
+     */
+    @Override
+    public ISingleMeasureRequest requestBuckets(
+        final String requestName, 
+        final String countryName, 
+        final String disasterType, 
+        final int width
+    ) throws IllegalArgumentException {
+        if (width <= 0) throw new IllegalArgumentException("The width of a bucket must be positive");
+
+        final Optional<NaturalDisaster> buckets = retrieve(countryName, disasterType).map(disaster -> {
+            final Resampler resampler = RESAMPLERS.get();
+            return resampled(disaster, resampler, resampler.bucket(disaster.getTimeSeries(), width));
+        });
+        return Request.create(requestName, countryName, disasterType, buckets, width + "-year buckets");
+    }
+
+    /**
+     * @throws IllegalArgumentException if the width is not positive
+     */
+    @Override
+    public ISingleMeasureRequest requestRollingSums(
+        final String requestName, 
+        final String countryName, 
+        final String disasterType, 
+        final int width
+    ) throws IllegalArgumentException {
+        if (width <= 0) throw new IllegalArgumentException("The width of a window must be positive");
+
+        final Optional<NaturalDisaster> windows = retrieve(countryName, disasterType).map(disaster -> {
+            final Resampler resampler = RESAMPLERS.get();
+            return resampled(disaster, resampler, resampler.roll(disaster.getTimeSeries(), width));
+        });
+        return Request.create(requestName, countryName, disasterType, windows, width + "-year rolling sums");
+    }
+
+    /**
+     * Turns the sums of a resampling into an entry of the same id, country and type as the resampled entry
+     * @throws ArithmeticException if a sum does not fit in an int
+     */
+    final private static NaturalDisaster resampled(final NaturalDisaster disaster, final Resampler resampler, final int size) {
+        return NaturalDisaster.create(
+            disaster.getId(), 
+            disaster.getCountry(), 
+            disaster.getType(), 
+            resampler.copyYears(new int[size]), 
+            resampler.copySums(new int[size]), 
+            size
+        );
+    }
+
+    /**
+     * Sums some entries into an aggregate
+     * @param country       the country of the aggregate
+     * @param type          the type of the aggregate
+     * @param disasters     the entries to sum
+     * @param skipTotals    whether to leave out the {@code TOTAL} entries
+     * @return              the aggregate; empty if there is nothing to sum
+     */
+    final private static Optional<NaturalDisaster> aggregate(
+        final Country country, 
+        final DisasterType type, 
+        final Collection<NaturalDisaster> disasters, 
+        final boolean skipTotals
+    ) {
+        if (disasters.isEmpty()) return Optional.empty();
+
+        final List<NaturalDisaster> summands = skipTotals 
+            ? disasters.stream().filter(disaster -> !disaster.getType().isTotal()).collect(Collectors.toList())
+            : new ArrayList<>(disasters);
+
+        return Optional.of(NaturalDisaster.aggregate(country, type, summands));
+    }
+
+    /**
+     * Returns the entries of a country
+     * @param country   an interned country
+     * @return          the entries of the country, ordered by disaster type
+     */
+    final private List<NaturalDisaster> entriesOf(final Country country) {
+        final List<NaturalDisaster> disasters = new ArrayList<>();
+        for (int type = 0; type < stride; type++) {
+            final NaturalDisaster disaster = get(country.getOrdinal(), type);
+            if (disaster != null) disasters.add(disaster);
+        }
+        return disasters;
+    }
+
+    /**
+     * Returns the entries of a disaster type
+     * @param type      an interned disaster type
+     * @return          the entries of the disaster type, in insertion order
+     */
+    final private List<NaturalDisaster> entriesOf(final DisasterType type) {
+        return type.getOrdinal() < entriesByType.size() ? entriesByType.get(type.getOrdinal()) : Collections.emptyList();
+    }
+
+    @Override
+    public ISingleMeasureRequest requestCountryAggregate(final String requestName, final String countryName) {
+        final Optional<NaturalDisaster> aggregate = countryIndex.resolve(countryName).flatMap(
+            country -> aggregate(country, DisasterType.ALL, entriesOf(country), true)
+        );
+        return Request.create(requestName, countryName, DisasterType.ALL.toString(), aggregate);
+    }
+
+    @Override
+    public ISingleMeasureRequest requestTypeAggregate(final String requestName, final String disasterType) {
+        final Optional<NaturalDisaster> aggregate = DisasterType.forName(disasterType).flatMap(
+            type -> aggregate(Country.ALL, type, entriesOf(type), false)
+        );
+        return Request.create(requestName, Country.ALL.toString(), disasterType, aggregate);
+    }
+
+    @Override
+    public ISingleMeasureRequest requestGlobalAggregate(final String requestName) {
+        final Optional<NaturalDisaster> aggregate = aggregate(Country.ALL, DisasterType.ALL, entries, true);
+        return Request.create(requestName, Country.ALL.toString(), DisasterType.ALL.toString(), aggregate);
+    }
+
     @Override
     final public String toString() {
-        return entries.values().stream()
+        return entries.stream()
                       .map(NaturalDisaster::toFullDescription)
                       .collect(Collectors.joining("\n"));
     }
@@ -0,0 +1,269 @@
+package server.database;
+
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+import server.commons.Country;
+import server.commons.DisasterType;
+import server.commons.NaturalDisaster;
+import server.commons.TimeSeries;
+
+
+/**
+ * A compact binary snapshot of the records of a database
+ * <p>
+ * A snapshot starts with the magic bytes "NDSN" and a format version. Countries and disaster types are stored
+ * once, in two dictionaries, and every record refers to them by index; the years of a record are delta-coded and,
+ * like the counts, written as variable-length integers, so a typical record takes a few dozen bytes. A CRC-32 of
+ * the content closes the snapshot.
+ * <p>
+ * Layout of version {@value #VERSION}, all integers but the header and the trailer being zigzag varints:
+ * <pre>
+ * int magic, int version
+ * countries: count, then (long name, iso2, iso3) per country
+ * types:     count, then name per type
+ * records:   count, then (id, country index, type index, n, n year deltas, n counts) per record
+ * long CRC-32 of everything before it
+ * </pre>
+ * Strings are written as a varint length followed by their UTF-8 bytes.
+ */
+final public class Snapshot {
+    final private static int MAGIC   = 0x4E44534E; // "NDSN"
+    final private static int VERSION = 1;
+
+    // hide the constructor
+    private Snapshot() {}
+
+    /**
+     * Checks whether a file starts with the magic bytes of a snapshot
+     * @param filePath      a file
+     * @return              true if the file looks like a snapshot
+     * @throws IOException  if the file cannot be read
+     */
+    final public static boolean isSnapshot(final Path filePath) throws IOException {
+        try (final InputStream input = Files.newInputStream(filePath)) {
+            final byte[] header = new byte[4];
+            int read = 0;
+            while (read < header.length) {
+                final int n = input.read(header, read, header.length - read);
+                if (n < 0) return false;
+                read += n;
+            }
+            return ByteBuffer.wrap(header).getInt() == MAGIC;
+        }
+    }
+
+    /**
+     * Writes the records to a snapshot file, replacing it if it exists
+     * <p>
+     * The snapshot is written to a temporary file next to the target, which then replaces the target in a single
+     * atomic move: a reader, e.g. a {@code DirectoryWatcher}, never sees a half-written snapshot, and a failed write 
+     * leaves the previous snapshot in place.
+     * @param entries       the records to write
+     * @param filePath      the snapshot file
+     * @throws IOException  if the file cannot be written
+     */
+    final public static void write(final Collection<NaturalDisaster> entries, final Path filePath) throws IOException {
+        final Map<Country, Integer> countries = new LinkedHashMap<>();
+        final Map<DisasterType, Integer> types = new LinkedHashMap<>();
+        for (final NaturalDisaster entry : entries) {
+            countries.putIfAbsent(entry.getCountry(), countries.size());
+            types.putIfAbsent(entry.getType(), types.size());
+        }
+
+        final Path temporary = filePath.resolveSibling(filePath.getFileName() + ".tmp");
+        try {
+            writeTo(entries, countries, types, temporary);
+            Files.move(temporary, filePath, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Writes the snapshot of the records, with their dictionaries, to a file
+     */
+    final private static void writeTo(
+        final Collection<NaturalDisaster> entries, 
+        final Map<Country, Integer> countries, 
+        final Map<DisasterType, Integer> types, 
+        final Path filePath
+    ) throws IOException {
+        final CRC32 crc = new CRC32();
+        try (final OutputStream file = new BufferedOutputStream(Files.newOutputStream(filePath))) {
+            final DataOutputStream output = new DataOutputStream(new CheckedOutputStream(file, crc));
+
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+
+            writeVarInt(output, countries.size());
+            for (final Country country : countries.keySet()) {
+                writeString(output, country.getLongName());
+                writeString(output, country.getIso2());
+                writeString(output, country.getIso3());
+            }
+
+            writeVarInt(output, types.size());
+            for (final DisasterType type : types.keySet()) writeString(output, type.toString());
+
+            int[] years = new int[64];
+
+            writeVarInt(output, entries.size());
+            for (final NaturalDisaster entry : entries) {
+                final TimeSeries measurements = entry.getTimeSeries();
+
+                writeVarInt(output, entry.getId());
+                writeVarInt(output, countries.get(entry.getCountry()));
+                writeVarInt(output, types.get(entry.getType()));
+                writeVarInt(output, measurements.size());
+
+                if (measurements.size() > years.length) years = new int[measurements.size()];
+                final int[] yearBuffer = years;
+                final int[] index = {0};
+                measurements.forEach((year, count) -> yearBuffer[index[0]++] = year);
+
+                int previousYear = 0;
+                for (int i = 0; i < measurements.size(); i++) {
+                    writeVarInt(output, years[i] - previousYear);
+                    previousYear = years[i];
+                }
+                for (int i = 0; i < measurements.size(); i++) writeVarInt(output, measurements.valueAt(i));
+            }
+
+            output.flush();
+            new DataOutputStream(file).writeLong(crc.getValue());
+        }
+    }
+
+    /**
+     * Reads the records of a snapshot file and hands them to a consumer, in the order they were written
+     * <p>
+     * The file is streamed, so the checksum is only verified after the last record; when it does not match, some
+     * records may already have been handed to the consumer, and the exception tells the caller to discard them.
+     * @param filePath      the snapshot file
+     * @param consumer      receives the records
+     * @throws IOException  if the file cannot be read, is not a snapshot, has an unsupported version or is corrupt
+     */
+    final public static void read(final Path filePath, final Consumer<? super NaturalDisaster> consumer) throws IOException {
+        // every counted item takes at least one byte, so no count can exceed the size of the file
+        final long size = Files.size(filePath);
+        if (size < 16) throw new IOException("The file is too short to be a snapshot");
+
+        final CRC32 crc = new CRC32();
+        try (final InputStream file = new BufferedInputStream(Files.newInputStream(filePath))) {
+            final DataInputStream input = new DataInputStream(new CheckedInputStream(file, crc));
+
+            if (input.readInt() != MAGIC) throw new IOException("The file is not a snapshot");
+
+            final int version = input.readInt();
+            if (version != VERSION) throw new IOException("Unsupported snapshot version: " + version);
+
+            final Country[] countries = new Country[readCount(input, size)];
+            for (int i = 0; i < countries.length; i++)
+                countries[i] = Country.intern(readString(input, size), readString(input, size), readString(input, size));
+
+            final DisasterType[] types = new DisasterType[readCount(input, size)];
+            for (int i = 0; i < types.length; i++) types[i] = DisasterType.intern(readString(input, size));
+
+            int[] years  = new int[64];
+            int[] counts = new int[64];
+
+            final int records = readCount(input, size);
+            for (int record = 0; record < records; record++) {
+                final int id      = readVarInt(input);
+                final int country = readVarInt(input);
+                final int type    = readVarInt(input);
+                final int length  = readCount(input, size);
+
+                if (length > years.length) {
+                    years  = new int[length];
+                    counts = new int[length];
+                }
+
+                int year = 0;
+                for (int i = 0; i < length; i++) years[i] = year += readVarInt(input);
+                for (int i = 0; i < length; i++) counts[i] = readVarInt(input);
+
+                final NaturalDisaster disaster;
+                try {
+                    disaster = NaturalDisaster.create(id, countries[country], types[type], years, counts, length);
+                } catch (final IllegalArgumentException | IndexOutOfBoundsException e) {
+                    throw new IOException("The snapshot is corrupt", e);
+                }
+                consumer.accept(disaster);
+            }
+
+            // the trailer is read past the checksum, and nothing may follow it
+            final long expected = new DataInputStream(file).readLong();
+            if (expected != crc.getValue() || file.read() >= 0) throw new IOException("The snapshot is corrupt");
+        } catch (final EOFException e) {
+            throw new IOException("The snapshot is corrupt", e);
+        }
+    }
+
+    /**
+     * Writes an int as a zigzag varint: 7 bits per byte, the lowest first, small magnitudes taking a single byte
+     */
+    final private static void writeVarInt(final DataOutputStream output, final int value) throws IOException {
+        int zigzag = (value << 1) ^ (value >> 31);
+        while ((zigzag & ~0x7F) != 0) {
+            output.writeByte((zigzag & 0x7F) | 0x80);
+            zigzag >>>= 7;
+        }
+        output.writeByte(zigzag);
+    }
+
+    /**
+     * Reads an int written by {@link #writeVarInt}
+     */
+    final private static int readVarInt(final DataInputStream input) throws IOException {
+        int zigzag = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            final byte b = input.readByte();
+            zigzag |= (b & 0x7F) << shift;
+            if (b >= 0) return (zigzag >>> 1) ^ -(zigzag & 1);
+        }
+        throw new IOException("The snapshot is corrupt");
+    }
+
+    /**
+     * Reads a count written by {@link #writeVarInt}; it cannot be negative nor exceed the size of the file
+     */
+    final private static int readCount(final DataInputStream input, final long size) throws IOException {
+        final int count = readVarInt(input);
+        if (count < 0 || count > size) throw new IOException("The snapshot is corrupt");
+        return count;
+    }
+
+    final private static void writeString(final DataOutputStream output, final String value) throws IOException {
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(output, bytes.length);
+        output.write(bytes);
+    }
+
+    final private static String readString(final DataInputStream input, final long size) throws IOException {
+        final byte[] bytes = new byte[readCount(input, size)];
+        input.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,75 @@
+package server.parsing;
+
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+
+/**
+ * A single-pass tokenizer that splits a line of UTF-8 bytes on a literal delimiter; see {@code FieldTokenizer}
+ * <p>
+ * It is the byte-level counterpart of {@code LineTokenizer}: it reads the line in place, with absolute gets, out
+ * of a buffer such as a memory-mapped window of a file. Numeric fields are parsed from their ASCII digits and only
+ * the fields that are materialized get copied out and decoded. Since UTF-8 never uses ASCII bytes inside a 
+ * multi-byte sequence, matching quotes and delimiters byte by byte is safe.
+ * <p>
+ * A tokenizer is not thread-safe; every thread needs its own.
+ */
+final class ByteTokenizer extends FieldTokenizer {
+    final private byte[] delimiter;
+
+    private ByteBuffer bytes = ByteBuffer.allocate(0);
+    private byte[] scratch = new byte[64];
+
+    /**
+     * Constructs a tokenizer
+     * @param delimiter     the literal, non-empty delimiter between the fields
+     * @throws IllegalArgumentException if the delimiter is empty
+     */
+    ByteTokenizer(final String delimiter) throws IllegalArgumentException {
+        this(delimiter.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private ByteTokenizer(final byte[] delimiter) throws IllegalArgumentException {
+        super(delimiter.length);
+        this.delimiter = delimiter;
+    }
+
+    /**
+     * Splits a line into fields; the fields of the previous line are discarded
+     * @param bytes         the buffer that holds the line; it must not change until the line has been processed
+     * @param from          the index of the first byte of the line
+     * @param to            the index right after the last byte of the line, without its line terminator
+     * @return              the number of fields of the line
+     * @throws IOException  when an opening quote is encountered without a corresponding closing quote,
+     *                      or a closing quote is not followed by a delimiter
+     */
+    final int tokenize(final ByteBuffer bytes, final int from, final int to) throws IOException {
+        this.bytes = bytes;
+        return split(from, to);
+    }
+
+    @Override
+    final int unitAt(final int index) {
+        return bytes.get(index);
+    }
+
+    @Override
+    final boolean isDelimiterAt(final int index, final int to) {
+        if (bytes.get(index) != delimiter[0]) return false;
+        if (index + delimiter.length > to) return false;
+        for (int i = 1; i < delimiter.length; i++)
+            if (bytes.get(index + i) != delimiter[i]) return false;
+        return true;
+    }
+
+    @Override
+    final String text(final int start, final int end) {
+        final int length = end - start;
+        if (length > scratch.length) scratch = Arrays.copyOf(scratch, Math.max(length, 2*scratch.length));
+        for (int i = 0; i < length; i++) scratch[i] = bytes.get(start + i);
+        return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+}
@@ -3,29 +3,59 @@ package server.parsing;
 
 import java.io.IOException;
 import java.io.BufferedReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
 
-import java.util.Arrays;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
 
 import server.commons.NaturalDisaster;
 
 
 /**
  * A simple parser that reads delimiter-separated text files.
+ * <p>
+ * In parallel mode the file is split into line-aligned byte ranges that are parsed as separate tasks of a
+ * fork-join pool; the rows are returned in file order and the first malformed line, in file order, is reported.
+ * Files smaller than {@value #PARALLEL_THRESHOLD} bytes are always parsed sequentially. Lines must end with 
+ * "\n" or "\r\n" in parallel mode.
+ * <p>
+ * The last skipped line is taken to be the header: the years of the measurement columns are read from it once,
+ * see {@code YearAxis}, and shared by all the rows and all the tasks.
  */
 final class DelimitedTxtParser implements IParser {
+    final static int PARALLEL_THRESHOLD = 1 << 20;
+    final private static int MAX_CHUNK_SIZE = 1 << 23;
+    final private static int TASKS_PER_THREAD = 4;
+
     final private String delimiter;
+    final private ForkJoinPool pool;
     
     /**
      * Constructs a parser with specified delimiter
      * @param delimiter the delimiter used by the file to parse
      */
     protected DelimitedTxtParser(final String delimiter) {
+        this(delimiter, null);
+    }
+
+    /**
+     * Constructs a parser with specified delimiter that parses large files in parallel
+     * @param delimiter the delimiter used by the file to parse
+     * @param pool      the pool that runs the parsing tasks; null for sequential parsing
+     */
+    protected DelimitedTxtParser(final String delimiter, final ForkJoinPool pool) {
         this.delimiter = delimiter;
+        this.pool = pool;
     }
     
     @Override
@@ -34,8 +64,27 @@ final class DelimitedTxtParser implements IParser {
             final int linesToSkip,
             final int initialYear
         ) throws IOException {
-        
+
         final List<NaturalDisaster> disasters = new ArrayList<>();
+        parse(filePath, linesToSkip, initialYear, disasters::add);
+        return disasters;
+    }
+
+    @Override
+    final public void parse(
+            final Path filePath,
+            final int linesToSkip,
+            final int initialYear,
+            final Consumer<? super NaturalDisaster> consumer
+        ) throws IOException {
+
+        if (pool != null && Files.size(filePath) >= PARALLEL_THRESHOLD) {
+            parseInParallel(filePath, linesToSkip, initialYear, consumer);
+            return;
+        }
+        
+        final LineParser lineParser = new LineParser(delimiter);
+        YearAxis axis = YearAxis.consecutive(initialYear);
         
         try (final BufferedReader reader = Files.newBufferedReader(filePath)) {
             String line;
@@ -44,63 +93,190 @@ final class DelimitedTxtParser implements IParser {
             while ( (line = reader.readLine()) != null ) {
                 lineIndex += 1;
                 
+                if (lineIndex == linesToSkip) axis = lineParser.parseHeader(line, initialYear);
                 if (lineIndex <= linesToSkip) continue;
                 
-                try {
-                    final NaturalDisaster disaster = NaturalDisaster.parse(this.split(line), initialYear);
-                    disasters.add(disaster);
-                } catch (IllegalArgumentException e) {
-                    throw new IOException(e.getMessage());
-                }
+                consumer.accept(lineParser.parse(line, axis));
             }
         }
-
-        return disasters;
     }
-    
+
     /**
-     * Splits the line on the delimiters. 
+     * Parses the file by splitting it into line-aligned chunks that are parsed in parallel
      * <p>
-     * Text within double quotes is treated as a block
-     * 
-     * @param line          a {@code String} to be splitted on the delimiters
-     * @return              the splitted chunks of text
-     * @throws IOException  when an opening quote is encountered without a corresponding closing quote
+     * At most {@value #TASKS_PER_THREAD} chunks per thread are in flight; a new chunk is submitted whenever the
+     * rows of the oldest one have been handed to the consumer, so memory stays bounded on large files.
+     * @see #parse(Path, int, int, Consumer)
      */
-    final private List<String> split(final String line) throws IOException {
-        final List<String> splittedLine = new ArrayList<>();
+    final private void parseInParallel(
+            final Path filePath,
+            final int linesToSkip,
+            final int initialYear,
+            final Consumer<? super NaturalDisaster> consumer
+        ) throws IOException {
 
-        final String quote = "\"";
-        
-        final List<String> naiveSplit = Arrays.asList( line.split(delimiter) );
-        
-        final Iterator<String> naiveIterator = naiveSplit.iterator();
+        try (final FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+            final long size  = channel.size();
+            final long start = skipLines(channel, 0, linesToSkip);
+            final YearAxis axis = linesToSkip == 0 
+                ? YearAxis.consecutive(initialYear) 
+                : readHeader(channel, skipLines(channel, 0, linesToSkip-1), start, initialYear);
+
+            final int chunks = (int) Math.max(
+                (long) pool.getParallelism() * TASKS_PER_THREAD, 
+                (size - start) / MAX_CHUNK_SIZE + 1
+            );
+
+            final List<long[]> ranges = new ArrayList<>(chunks);
 
-        while (naiveIterator.hasNext()) {
-            String word = naiveIterator.next();
+            long from = start;
+            for (int chunk = 1; chunk <= chunks && from < size; chunk++) {
+                final long to = chunk == chunks ? size : skipLines(channel, start + (size - start) * chunk / chunks, 1);
+                if (to <= from) continue;
 
-            if (!word.contains(quote)) {
-                splittedLine.add(word);
-                continue;
+                ranges.add(new long[] {from, to});
+                from = to;
             }
-            
-            if (word.contains(quote)) {
-                final List<String> capturedContext = new ArrayList<String>();
-                capturedContext.add(word); 
-            
-                while (naiveIterator.hasNext()) {
-                    word = naiveIterator.next();
-                    capturedContext.add(word);
-                    if (word.contains(quote)) break;
+
+            final int inFlight = pool.getParallelism() * TASKS_PER_THREAD;
+            final ArrayDeque<ForkJoinTask<List<NaturalDisaster>>> tasks = new ArrayDeque<>(inFlight);
+
+            try {
+                int submitted = 0;
+                while (submitted < ranges.size() || !tasks.isEmpty()) {
+                    while (submitted < ranges.size() && tasks.size() < inFlight) {
+                        final long[] range = ranges.get(submitted++);
+                        tasks.add(pool.submit(() -> parseChunk(channel, range[0], range[1], axis)));
+                    }
+                    tasks.poll().get().forEach(consumer);
                 }
+            } catch (final ExecutionException e) {
+                if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+                throw new IOException(e.getCause());
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
+            } finally {
+                tasks.forEach(task -> task.cancel(true));
+            }
+        }
+    }
+
+    /**
+     * Parses the lines in the byte range [from, to) of a file; the range must start and end at line boundaries
+     */
+    final private List<NaturalDisaster> parseChunk(
+            final FileChannel channel, 
+            final long from, 
+            final long to, 
+            final YearAxis axis
+        ) throws IOException {
 
-                if (naiveIterator.hasNext() || word.contains(quote))
-                    splittedLine.add(String.join(delimiter, capturedContext));
-                else
-                    throw new IOException("There is an opening quote without a corresponding closing quote");                
+        final String text = read(channel, from, to);
+        final List<NaturalDisaster> disasters = new ArrayList<>();
+        final LineParser lineParser = new LineParser(delimiter);
+
+        int lineStart = 0;
+        while (lineStart < text.length()) {
+            int lineEnd = text.indexOf('\n', lineStart);
+            if (lineEnd < 0) lineEnd = text.length();
+
+            final int contentEnd = lineEnd > lineStart && text.charAt(lineEnd-1) == '\r' ? lineEnd-1 : lineEnd;
+            disasters.add(lineParser.parse(text.substring(lineStart, contentEnd), axis));
+
+            lineStart = lineEnd + 1;
+        }
+
+        return disasters;
+    }
+
+    /**
+     * Reads the header in the byte range [from, to) of a file, which holds a single line, into a year axis
+     */
+    final private YearAxis readHeader(
+            final FileChannel channel, 
+            final long from, 
+            final long to, 
+            final int initialYear
+        ) throws IOException {
+
+        final String header = read(channel, from, to);
+
+        int end = header.length();
+        while (end > 0 && (header.charAt(end-1) == '\n' || header.charAt(end-1) == '\r')) end -= 1;
+
+        return new LineParser(delimiter).parseHeader(header.substring(0, end), initialYear);
+    }
+
+    /**
+     * Reads the byte range [from, to) of a file as UTF-8 text
+     */
+    final private static String read(final FileChannel channel, final long from, final long to) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate((int) (to - from));
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, from + buffer.position()) < 0) 
+                throw new IOException("The file was truncated while it was being parsed");
+        }
+        return new String(buffer.array(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Finds the position right after a number of line ends
+     * @param channel   the file
+     * @param position  the position to start from
+     * @param lines     the number of line ends to skip
+     * @return          the position after the last skipped line end; the size of the file if there are not enough lines
+     */
+    final private static long skipLines(final FileChannel channel, long position, int lines) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(1 << 13);
+
+        while (lines > 0) {
+            buffer.clear();
+            final int read = channel.read(buffer, position);
+            if (read < 0) return channel.size();
+
+            for (int i = 0; i < read && lines > 0; i++) {
+                position += 1;
+                if (buffer.get(i) == '\n') lines -= 1;
             }
         }
 
-        return splittedLine;
+        return position;
+    }
+    
+    /**
+     * Turns lines into {@code NaturalDisaster}s through a reusable tokenizer and a reusable row builder
+     * <p>
+     * A line parser is not thread-safe; every thread needs its own.
+     */
+    final private static class LineParser {
+        final private LineTokenizer tokenizer;
+        final private RowBuilder builder = new RowBuilder();
+
+        private LineParser(final String delimiter) {
+            this.tokenizer = new LineTokenizer(delimiter);
+        }
+
+        /**
+         * Parses a line into a {@code NaturalDisaster}
+         * @param line          a line of the file
+         * @param axis          the years of the measurement columns
+         * @return              the natural disaster of the line
+         * @throws IOException  when the line is malformed
+         */
+        final private NaturalDisaster parse(final String line, final YearAxis axis) throws IOException {
+            return builder.build(tokenizer, tokenizer.tokenize(line), axis);
+        }
+
+        /**
+         * Parses the header of a file into a year axis
+         * @param line          the header
+         * @param initialYear   the year of the first measurement column if the header does not name any year
+         * @return              the years of the measurement columns
+         * @throws IOException  when the header is malformed
+         */
+        final private YearAxis parseHeader(final String line, final int initialYear) throws IOException {
+            return YearAxis.fromHeader(tokenizer, tokenizer.tokenize(line), initialYear);
+        }
     }
-}
\ No newline at end of file
+}
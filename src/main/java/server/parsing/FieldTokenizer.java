@@ -0,0 +1,194 @@
+package server.parsing;
+
+
+import java.io.IOException;
+import java.util.Arrays;
+
+
+/**
+ * The single-pass state machine that splits a line on a literal delimiter, shared by the tokenizers of the
+ * different kinds of input
+ * <p>
+ * A subclass exposes its input as a sequence of code units, e.g. the chars of a {@code String} or the bytes of a
+ * buffer, through {@link #unitAt(int)}, {@link #isDelimiterAt(int, int)} and {@link #text(int, int)}. The state
+ * machine records the start and end offsets of every field in reusable arrays, so tokenizing a line allocates 
+ * nothing once the arrays are large enough; fields are only materialized on demand. A field that starts with a 
+ * double quote extends to the matching closing quote, may contain the delimiter and escapes a double quote by
+ * doubling it; the enclosing quotes are not part of the field.
+ * <p>
+ * A tokenizer is not thread-safe; every thread needs its own.
+ */
+abstract class FieldTokenizer implements TokenizedFields {
+    final private static int QUOTE = '"';
+
+    final private static int FIELD_START = 0;
+    final private static int UNQUOTED    = 1;
+    final private static int QUOTED      = 2;
+    final private static int QUOTE_SEEN  = 3;
+
+    final private int delimiterLength;
+
+    private int count = 0;
+    private int[] starts  = new int[64];
+    private int[] ends    = new int[64];
+    private boolean[] escaped = new boolean[64];
+
+    /**
+     * Constructs a tokenizer
+     * @param delimiterLength   the number of code units of the delimiter
+     * @throws IllegalArgumentException if the delimiter is empty
+     */
+    FieldTokenizer(final int delimiterLength) throws IllegalArgumentException {
+        if (delimiterLength == 0) throw new IllegalArgumentException("The delimiter must not be empty");
+        this.delimiterLength = delimiterLength;
+    }
+
+    /**
+     * Returns the code unit at an offset of the current input
+     */
+    abstract int unitAt(final int offset);
+
+    /**
+     * Checks whether the delimiter occurs at an offset of the current input, without reading past an end offset
+     */
+    abstract boolean isDelimiterAt(final int offset, final int to);
+
+    /**
+     * Decodes the code units in the range [start, end) of the current input
+     */
+    abstract String text(final int start, final int end);
+
+    /**
+     * Splits the range [from, to) of the current input into fields; the fields of the previous line are discarded
+     * @param from          the offset of the first code unit of the line
+     * @param to            the offset right after the last code unit of the line, without its line terminator
+     * @return              the number of fields of the line
+     * @throws IOException  when an opening quote is encountered without a corresponding closing quote,
+     *                      or a closing quote is not followed by a delimiter
+     */
+    final int split(final int from, final int to) throws IOException {
+        this.count = 0;
+
+        int state = FIELD_START;
+        int start = from;
+        boolean hasEscapes = false;
+
+        for (int i = from; i < to; i++) {
+            final int unit = unitAt(i);
+
+            switch (state) {
+                case FIELD_START:
+                    if (unit == QUOTE) {
+                        state = QUOTED;
+                        start = i+1;
+                        hasEscapes = false;
+                    } else if (isDelimiterAt(i, to)) {
+                        addField(i, i, false);
+                        i += delimiterLength - 1;
+                    } else {
+                        state = UNQUOTED;
+                        start = i;
+                    }
+                    break;
+                case UNQUOTED:
+                    if (isDelimiterAt(i, to)) {
+                        addField(start, i, false);
+                        i += delimiterLength - 1;
+                        state = FIELD_START;
+                    }
+                    break;
+                case QUOTED:
+                    if (unit == QUOTE) state = QUOTE_SEEN;
+                    break;
+                case QUOTE_SEEN:
+                    if (unit == QUOTE) {
+                        hasEscapes = true;
+                        state = QUOTED;
+                    } else if (isDelimiterAt(i, to)) {
+                        addField(start, i-1, hasEscapes);
+                        i += delimiterLength - 1;
+                        state = FIELD_START;
+                    } else {
+                        throw new IOException("A closing quote must be followed by a delimiter");
+                    }
+                    break;
+                default:
+                    throw new AssertionError("This code is supposed to be unreachable");
+            }
+        }
+
+        switch (state) {
+            case FIELD_START:
+                addField(to, to, false);
+                break;
+            case UNQUOTED:
+                addField(start, to, false);
+                break;
+            case QUOTE_SEEN:
+                addField(start, to-1, hasEscapes);
+                break;
+            default:
+                throw new IOException("There is an opening quote without a corresponding closing quote");
+        }
+
+        return count;
+    }
+
+    /**
+     * Records the offsets of a field, growing the arrays if needed
+     */
+    final private void addField(final int start, final int end, final boolean hasEscapes) {
+        if (count == starts.length) {
+            starts  = Arrays.copyOf(starts, 2*count);
+            ends    = Arrays.copyOf(ends, 2*count);
+            escaped = Arrays.copyOf(escaped, 2*count);
+        }
+        starts[count]  = start;
+        ends[count]    = end;
+        escaped[count] = hasEscapes;
+        count += 1;
+    }
+
+    /**
+     * Returns the offset in the input where a field starts
+     * @param field     the index of a field
+     */
+    final int start(final int field) {
+        return starts[field];
+    }
+
+    /**
+     * Returns the offset in the input right after the end of a field
+     * @param field     the index of a field
+     */
+    final int end(final int field) {
+        return ends[field];
+    }
+
+    @Override
+    final public boolean isEmpty(final int field) {
+        return starts[field] == ends[field];
+    }
+
+    @Override
+    final public String get(final int field) {
+        final String text = text(starts[field], ends[field]);
+        return escaped[field] ? text.replace("\"\"", "\"") : text;
+    }
+
+    @Override
+    final public int getInt(final int field) throws NumberFormatException {
+        final int start = starts[field];
+        final int end   = ends[field];
+        if (start == end) throw new NumberFormatException("For input string: \"\"");
+
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            final int digit = unitAt(i) - '0';
+            if (digit < 0 || digit > 9 || value > (Integer.MAX_VALUE - digit) / 10)
+                throw new NumberFormatException("For input string: \"" + get(field) + "\"");
+            value = 10*value + digit;
+        }
+        return value;
+    }
+}
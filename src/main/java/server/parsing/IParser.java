@@ -5,6 +5,7 @@ import java.io.IOException;
 import java.nio.file.Path;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 import server.commons.NaturalDisaster;
 
@@ -18,9 +19,33 @@ public interface IParser {
     *
     * @param filePath       a file to parse
     * @param linesToSkip    a number of lines to skip in the beginning of the file; for instance if there is a header
-    * @param initialYear    the year when the measurements started
+    * @param initialYear    the year of the first measurement column, unless the last skipped line is a header that
+    *                       names the year of every measurement column
     * @return               a list of {@code Entry} instances
     * @throws IOException   when the input file is malformed
     */
     public List<NaturalDisaster> parse(final Path filePath, final int linesToSkip, final int initialYear) throws IOException;
+
+   /**
+    * Parses the given input file and hands every {@code Entry} to a consumer, in file order, as soon as it is parsed
+    * <p>
+    * Implementations should stream the entries without holding the whole file in memory; the default implementation
+    * falls back to {@link #parse(Path, int, int)}. The entries that precede a malformed line have already been
+    * consumed when the exception is thrown.
+    *
+    * @param filePath       a file to parse
+    * @param linesToSkip    a number of lines to skip in the beginning of the file; for instance if there is a header
+    * @param initialYear    the year of the first measurement column, unless the last skipped line is a header that
+    *                       names the year of every measurement column
+    * @param consumer       receives the {@code Entry} instances
+    * @throws IOException   when the input file is malformed
+    */
+    default public void parse(
+        final Path filePath, 
+        final int linesToSkip, 
+        final int initialYear, 
+        final Consumer<? super NaturalDisaster> consumer
+    ) throws IOException {
+        parse(filePath, linesToSkip, initialYear).forEach(consumer);
+    }
 }
\ No newline at end of file
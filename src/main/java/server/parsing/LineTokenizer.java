@@ -0,0 +1,56 @@
+package server.parsing;
+
+
+import java.io.IOException;
+
+
+/**
+ * A single-pass tokenizer that splits a {@code String} line on a literal delimiter; see {@code FieldTokenizer}
+ * <p>
+ * A tokenizer is not thread-safe; every thread needs its own.
+ */
+final class LineTokenizer extends FieldTokenizer {
+    final private String delimiter;
+    final private char firstDelimiterChar;
+
+    private String line = "";
+
+    /**
+     * Constructs a tokenizer
+     * @param delimiter     the literal, non-empty delimiter between the fields
+     * @throws IllegalArgumentException if the delimiter is empty
+     */
+    LineTokenizer(final String delimiter) throws IllegalArgumentException {
+        super(delimiter.length());
+        this.delimiter = delimiter;
+        this.firstDelimiterChar = delimiter.charAt(0);
+    }
+
+    /**
+     * Splits a line into fields; the fields of the previous line are discarded
+     * @param line          a line without its line terminator
+     * @return              the number of fields of the line
+     * @throws IOException  when an opening quote is encountered without a corresponding closing quote,
+     *                      or a closing quote is not followed by a delimiter
+     */
+    final int tokenize(final String line) throws IOException {
+        this.line = line;
+        return split(0, line.length());
+    }
+
+    @Override
+    final int unitAt(final int offset) {
+        return line.charAt(offset);
+    }
+
+    @Override
+    final boolean isDelimiterAt(final int offset, final int to) {
+        return line.charAt(offset) == firstDelimiterChar
+            && (delimiter.length() == 1 || line.startsWith(delimiter, offset));
+    }
+
+    @Override
+    final String text(final int start, final int end) {
+        return line.substring(start, end);
+    }
+}
@@ -0,0 +1,153 @@
+package server.parsing;
+
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import server.commons.NaturalDisaster;
+
+
+/**
+ * A parser that reads delimiter-separated text files by memory-mapping them and tokenizing their bytes in place
+ * <p>
+ * Unlike {@code DelimitedTxtParser}, lines are never decoded into {@code String}s: the counts are parsed from
+ * their ASCII digits and only the country and indicator fields are decoded, from UTF-8. The file is mapped in
+ * windows of {@value #WINDOW_SIZE} bytes that are tokenized straight from the mapped memory, with absolute gets,
+ * so the bytes are never copied to the heap. A window ends at the last line end it holds and the next window 
+ * starts right after it; a window that does not hold a single full line is mapped again twice as large. Lines 
+ * must end with "\n" or "\r\n". The years of the measurement columns are read once from the last skipped line, 
+ * the header; see {@code YearAxis}.
+ */
+final class MappedDelimitedTxtParser implements IParser {
+    final static int WINDOW_SIZE = 1 << 26;
+
+    final private String delimiter;
+    final private int windowSize;
+
+    /**
+     * Constructs a parser with specified delimiter
+     * @param delimiter the delimiter used by the file to parse
+     */
+    protected MappedDelimitedTxtParser(final String delimiter) {
+        this(delimiter, WINDOW_SIZE);
+    }
+
+    /**
+     * Constructs a parser with specified delimiter and mapping window
+     * @param delimiter     the delimiter used by the file to parse
+     * @param windowSize    the number of bytes mapped at once; a window grows for longer lines
+     */
+    MappedDelimitedTxtParser(final String delimiter, final int windowSize) {
+        this.delimiter  = delimiter;
+        this.windowSize = windowSize;
+    }
+
+    @Override
+    final public List<NaturalDisaster> parse(
+            final Path filePath,
+            final int linesToSkip,
+            final int initialYear
+        ) throws IOException {
+
+        final List<NaturalDisaster> disasters = new ArrayList<>();
+        parse(filePath, linesToSkip, initialYear, disasters::add);
+        return disasters;
+    }
+
+    @Override
+    final public void parse(
+            final Path filePath,
+            final int linesToSkip,
+            final int initialYear,
+            final Consumer<? super NaturalDisaster> consumer
+        ) throws IOException {
+
+        final ByteTokenizer tokenizer = new ByteTokenizer(delimiter);
+        final RowBuilder builder = new RowBuilder();
+
+        YearAxis axis = YearAxis.consecutive(initialYear);
+        int lineIndex = 0;
+
+        try (final FileChannel channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+            final long size = channel.size();
+            long position = 0;
+            int span = windowSize;
+
+            while (position < size) {
+                final int length = (int) Math.min(span, size - position);
+                final MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+
+                int lineStart = 0;
+                int lineEnd;
+                while ((lineEnd = indexOf(window, (byte) '\n', lineStart, length)) >= 0) {
+                    lineIndex += 1;
+                    if (lineIndex > linesToSkip) 
+                        consumer.accept(parseLine(tokenizer, builder, window, lineStart, lineEnd, axis));
+                    else if (lineIndex == linesToSkip)
+                        axis = parseHeader(tokenizer, window, lineStart, lineEnd, initialYear);
+                    lineStart = lineEnd + 1;
+                }
+
+                if (position + length == size) {
+                    // the last line of the file may lack a line end
+                    if (lineStart < length && lineIndex >= linesToSkip)
+                        consumer.accept(parseLine(tokenizer, builder, window, lineStart, length, axis));
+                    return;
+                }
+
+                if (lineStart == 0) {
+                    span = (int) Math.min(Integer.MAX_VALUE, 2L * span);
+                } else {
+                    position += lineStart;
+                }
+            }
+        }
+    }
+
+    /**
+     * Parses the line in the range [from, to) of a window, dropping a trailing carriage return
+     */
+    final private static NaturalDisaster parseLine(
+            final ByteTokenizer tokenizer,
+            final RowBuilder builder,
+            final ByteBuffer window,
+            final int from,
+            final int to,
+            final YearAxis axis
+        ) throws IOException {
+        final int end = to > from && window.get(to-1) == '\r' ? to-1 : to;
+        return builder.build(tokenizer, tokenizer.tokenize(window, from, end), axis);
+    }
+
+    /**
+     * Parses the header in the range [from, to) of a window into a year axis, dropping a trailing carriage return
+     */
+    final private static YearAxis parseHeader(
+            final ByteTokenizer tokenizer,
+            final ByteBuffer window,
+            final int from,
+            final int to,
+            final int initialYear
+        ) throws IOException {
+        final int end = to > from && window.get(to-1) == '\r' ? to-1 : to;
+        return YearAxis.fromHeader(tokenizer, tokenizer.tokenize(window, from, end), initialYear);
+    }
+
+    /**
+     * Finds the first occurrence of a byte in the range [from, to) of a buffer
+     * @return  the index of the byte; -1 if it does not occur in the range
+     */
+    final private static int indexOf(final ByteBuffer bytes, final byte b, final int from, final int to) {
+        for (int i = from; i < to; i++)
+            if (bytes.get(i) == b) return i;
+        return -1;
+    }
+}
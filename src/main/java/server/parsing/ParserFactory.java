@@ -3,12 +3,13 @@ package server.parsing;
 
 import java.nio.file.Path;
 import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
 
 
 /**
  * A parser factory
  * <p>
- * It currently supports CSV, TSV parsers and parsers for delimited text with custom delimiters 
+ * It currently supports CSV, TSV parsers, their memory-mapped variants and parsers for delimited text with custom delimiters 
  */
 final public class ParserFactory {
 
@@ -18,11 +19,13 @@ final public class ParserFactory {
 	/**
 	 * Regulates which of all the possible implementations of {@code IParser} to use
 	 * <p>
-	 * It currently supports csv and tsv files.
+	 * It currently supports csv and tsv files; the MAPPED variants memory-map the file and tokenize its bytes in place.
 	 */
 	public static enum ParserType{
 		CSV (",", ".csv"), 
-		TSV ("\t", ".tsv");
+		TSV ("\t", ".tsv"),
+		MAPPED_CSV (",", ".csv"), 
+		MAPPED_TSV ("\t", ".tsv");
 
 		final protected String delimiter;
 		final protected String fileExtension;
@@ -31,6 +34,14 @@ final public class ParserFactory {
 			this.delimiter = delimiter;
 			this.fileExtension = extension;
 		}
+
+		/**
+		 * Returns the delimiter of the files this parser type reads
+		 * @return the delimiter
+		 */
+		public String getDelimiter() {
+			return delimiter;
+		}
 	}
 	
 	/**
@@ -44,6 +55,10 @@ final public class ParserFactory {
 				return new DelimitedTxtParser(ParserType.CSV.delimiter);
 			case TSV:
 				return new DelimitedTxtParser(ParserType.TSV.delimiter);
+			case MAPPED_CSV:
+				return new MappedDelimitedTxtParser(ParserType.MAPPED_CSV.delimiter);
+			case MAPPED_TSV:
+				return new MappedDelimitedTxtParser(ParserType.MAPPED_TSV.delimiter);
 			default:
 				throw new AssertionError("This code is supposed to be unreachable");
 		}
@@ -58,6 +73,25 @@ final public class ParserFactory {
 		return new DelimitedTxtParser(delimiter);
 	}
 
+	/** 
+	 * Constructs a DelimitedTxtParser that parses large files in parallel on the common fork-join pool
+	 * @param 	delimiter the delimiter to use
+	 * @return 	a new parallel {@code DelimitedTxtParser} with the specified delimiter
+	 */
+	final public static IParser createParallelDelimitedTxtParser(final String delimiter) {
+		return new DelimitedTxtParser(delimiter, ForkJoinPool.commonPool());
+	}
+
+	/** 
+	 * Constructs a DelimitedTxtParser that parses large files in parallel on a given fork-join pool
+	 * @param 	delimiter 	the delimiter to use
+	 * @param 	pool 		the pool that runs the parsing tasks
+	 * @return 	a new parallel {@code DelimitedTxtParser} with the specified delimiter
+	 */
+	final public static IParser createParallelDelimitedTxtParser(final String delimiter, final ForkJoinPool pool) {
+		return new DelimitedTxtParser(delimiter, pool);
+	}
+
 	/**
      * Guesses the parser type needed based on the extension of a file
      * <p>
@@ -0,0 +1,55 @@
+package server.parsing;
+
+
+import java.io.IOException;
+
+import server.commons.NaturalDisaster;
+
+
+/**
+ * Builds {@code NaturalDisaster}s from tokenized rows, reusing its measurement buffers from row to row
+ * <p>
+ * A row holds the id, the country long name, iso2, iso3, the disaster type and then one count per year; only the
+ * text fields are materialized, the id and the counts are parsed in place. The years of the counts come from a
+ * {@code YearAxis}. A builder is not thread-safe.
+ */
+final class RowBuilder {
+    private int[] years  = new int[64];
+    private int[] counts = new int[64];
+
+    /**
+     * Builds the {@code NaturalDisaster} of a row
+     * @param fields        the fields of the row
+     * @param size          the number of fields of the row
+     * @param axis          the years of the measurement columns
+     * @return              the natural disaster of the row
+     * @throws IOException  when the row is malformed
+     */
+    final NaturalDisaster build(final TokenizedFields fields, final int size, final YearAxis axis) throws IOException {
+        if (size < 5) throw new IOException("Not enough fields to initialize a NaturalDisaster");
+        axis.checkColumns(size - 5);
+
+        if (size - 5 > years.length) {
+            years  = new int[size - 5];
+            counts = new int[size - 5];
+        }
+
+        try {
+            final int id = fields.getInt(0);
+
+            int length = 0;
+            for (int field = 5; field < size; field++) {
+                if (fields.isEmpty(field)) continue;
+                years[length]  = axis.yearOf(field - 5);
+                counts[length] = fields.getInt(field);
+                length += 1;
+            }
+
+            return NaturalDisaster.create(
+                id, fields.get(1), fields.get(2), fields.get(3), fields.get(4), years, counts, length
+            );
+        } catch (IllegalArgumentException e) {
+            throw new IOException(e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package server.parsing;
+
+
+/**
+ * The fields of a tokenized line, accessed by index without necessarily materializing them
+ */
+interface TokenizedFields {
+    /**
+     * Checks whether a field is empty
+     * @param field     the index of a field
+     */
+    public boolean isEmpty(final int field);
+
+    /**
+     * Materializes a field, unescaping its doubled quotes
+     * @param field     the index of a field
+     * @return          the text of the field
+     */
+    public String get(final int field);
+
+    /**
+     * Parses a field as a non-negative int without materializing it
+     * @param field     the index of a non-empty field
+     * @return          the value of the field
+     * @throws NumberFormatException if the field is empty, contains a non-digit character or overflows an int
+     */
+    public int getInt(final int field) throws NumberFormatException;
+}
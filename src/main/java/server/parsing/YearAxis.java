@@ -0,0 +1,101 @@
+package server.parsing;
+
+
+import java.io.IOException;
+
+
+/**
+ * Maps the measurement columns of a file to their years
+ * <p>
+ * The axis is read once from the header of a file, whose measurement columns name their years, and then shared
+ * by every row, so a row never looks its years up by name. When the years of the header are consecutive, as they
+ * usually are, the axis only keeps the first one; otherwise it keeps one year per column, so files may skip years.
+ * A row with more measurement columns than its header is malformed. A file without a header, or whose header 
+ * does not name any year, falls back to consecutive years from a given initial year, for any number of columns.
+ * <p>
+ * An axis is immutable and may be shared by many threads.
+ */
+final class YearAxis {
+    final private static int FIRST_MEASUREMENT = 5;
+
+    final private int firstYear;
+    final private int[] years;
+    final private int columns;
+
+    /**
+     * Constructs an axis; years is null when the years are consecutive from firstYear, and columns is negative 
+     * when the number of columns is not bounded by a header
+     */
+    private YearAxis(final int firstYear, final int[] years, final int columns) {
+        this.firstYear = firstYear;
+        this.years = years;
+        this.columns = columns;
+    }
+
+    /**
+     * Creates an axis of consecutive years
+     * @param initialYear   the year of the first measurement column
+     * @return              the axis
+     */
+    final static YearAxis consecutive(final int initialYear) {
+        return new YearAxis(initialYear, null, -1);
+    }
+
+    /**
+     * Creates the axis named by the header of a file
+     * @param header        the fields of the header
+     * @param size          the number of fields of the header
+     * @param initialYear   the year of the first measurement column if the header does not name any year
+     * @return              the axis
+     * @throws IOException  when only some measurement columns of the header are years, or the years are not
+     *                      strictly increasing
+     */
+    final static YearAxis fromHeader(final TokenizedFields header, final int size, final int initialYear) throws IOException {
+        final int columns = size - FIRST_MEASUREMENT;
+        if (columns <= 0) return consecutive(initialYear);
+
+        final int[] years = new int[columns];
+        int named = 0;
+        for (int column = 0; column < columns; column++) {
+            try {
+                years[column] = header.getInt(FIRST_MEASUREMENT + column);
+                named += 1;
+            } catch (final NumberFormatException e) {
+                years[column] = -1;
+            }
+        }
+
+        if (named == 0) return consecutive(initialYear);
+
+        boolean isConsecutive = true;
+        for (int column = 0; column < columns; column++) {
+            if (years[column] < 0) 
+                throw new IOException("The header column \"" + header.get(FIRST_MEASUREMENT + column) + "\" is not a year");
+            if (column > 0 && years[column] <= years[column-1]) 
+                throw new IOException("The years of the header must be strictly increasing");
+            isConsecutive &= years[column] == years[0] + column;
+        }
+
+        return new YearAxis(years[0], isConsecutive ? null : years, columns);
+    }
+
+    /**
+     * Checks that a row does not have more measurement columns than the header
+     * @param count         the number of measurement columns of a row
+     * @throws IOException  when the row has more measurement columns than the header
+     */
+    final void checkColumns(final int count) throws IOException {
+        if (columns >= 0 && count > columns) 
+            throw new IOException("The row has " + count + " measurement columns but the header only names " + columns);
+    }
+
+    /**
+     * Returns the year of a measurement column
+     * @param column    the index of the column among the measurement columns, within those of the header; 0 is
+     *                  the first one
+     * @return          the year of the column
+     */
+    final int yearOf(final int column) {
+        return years == null ? firstYear + column : years[column];
+    }
+}
@@ -0,0 +1,140 @@
+package engine;
+
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+import org.junit.Assert;
+
+import dom2app.ISingleMeasureRequest;
+
+import server.commons.NaturalDisaster;
+
+
+public class BoundedRequestRegistryTest {
+
+    final private AtomicLong now = new AtomicLong();
+
+    final private MainController newController(final RetentionPolicy policy) throws IOException {
+        final MainController controller = new MainController(new BoundedRequestRegistry(policy, now::get));
+        controller.load("src/test/resources/input/gre.tsv", "\t");
+        return controller;
+    }
+
+    @Test
+    public void testEvictionAndRecomputation() throws IOException {
+        final MainController controller = newController(new RetentionPolicy(2, 1_000, Duration.ofHours(1)));
+
+        final ISingleMeasureRequest flood = controller.findSingleCountryIndicator("flood", "Greece", "Flood");
+        controller.findSingleCountryIndicator("storm", "Greece", "Storm");
+        Assert.assertSame(flood, controller.getRequestByName("flood"));
+
+        // "storm" is now the least recently used answer
+        controller.findSingleCountryIndicator("total", "Greece", "TOTAL");
+        Assert.assertEquals(3, controller.getAllRequestNames().size());
+
+        RequestStoreMetrics metrics = controller.getRequestStoreMetrics();
+        Assert.assertEquals(1, metrics.getHits());
+        Assert.assertEquals(1, metrics.getEvictions());
+        Assert.assertEquals(2, metrics.getRetainedRequests());
+
+        final ISingleMeasureRequest storm = controller.getRequestByName("storm");
+        Assert.assertEquals("storm", storm.getRequestName());
+        Assert.assertEquals("Storm", storm.getAnswer().getIndicatorString());
+        Assert.assertSame(storm, controller.getRequestByName("storm"));
+
+        metrics = controller.getRequestStoreMetrics();
+        Assert.assertEquals(2, metrics.getHits());
+        Assert.assertEquals(1, metrics.getRecomputations());
+        Assert.assertEquals(2, metrics.getEvictions());
+        Assert.assertEquals(2, metrics.getRetainedRequests());
+    }
+
+    @Test
+    public void testObservationLimit() throws IOException {
+        final MainController controller = newController(new RetentionPolicy(100, 1, Duration.ofHours(1)));
+
+        final ISingleMeasureRequest flood = controller.findSingleCountryIndicator("flood", "Greece", "Flood");
+        final int observations = flood.getAnswer().getMeasurements().size();
+        Assert.assertTrue(observations > 1);
+
+        // the newest answer is retained even though it is over the limit on its own
+        RequestStoreMetrics metrics = controller.getRequestStoreMetrics();
+        Assert.assertEquals(1, metrics.getRetainedRequests());
+        Assert.assertEquals(observations, metrics.getRetainedObservations());
+
+        // the measurements are packed one byte per count, so they take far less than two ints per observation
+        long bytes = ((NaturalDisaster) flood.getAnswer()).getTimeSeries().sizeInBytes();
+        Assert.assertEquals(RequestStoreMetrics.BYTES_PER_REQUEST + bytes, metrics.getEstimatedRetainedBytes());
+        Assert.assertTrue(bytes < observations * 2L * Integer.BYTES);
+
+        controller.findSingleCountryIndicator("storm", "Greece", "Storm");
+        metrics = controller.getRequestStoreMetrics();
+        Assert.assertEquals(1, metrics.getRetainedRequests());
+        Assert.assertEquals(1, metrics.getEvictions());
+    }
+
+    @Test
+    public void testExpiration() throws IOException {
+        final MainController controller = newController(new RetentionPolicy(100, 1_000, Duration.ofSeconds(10)));
+
+        final ISingleMeasureRequest flood = controller.findSingleCountryIndicatorYearRange("flood", "Greece", "Flood", 1990, 2010);
+        now.addAndGet(Duration.ofSeconds(11).toNanos());
+
+        Assert.assertEquals(0, controller.getRequestStoreMetrics().getRetainedRequests());
+        Assert.assertEquals(1, controller.getRequestStoreMetrics().getExpirations());
+
+        final ISingleMeasureRequest recomputed = controller.getRequestByName("flood");
+        Assert.assertNotSame(flood, recomputed);
+        Assert.assertEquals(flood.getAnswer().getMeasurements(), recomputed.getAnswer().getMeasurements());
+        Assert.assertEquals(1, controller.getRequestStoreMetrics().getRecomputations());
+    }
+
+    /**
+     * A slow recomputation must not block the lookups and the registrations of other requests
+     */
+    @Test(timeout = 10_000)
+    public void testRecomputationOutsideTheLock() throws IOException, InterruptedException {
+        final MainController controller = newController(new RetentionPolicy(1, 1_000, Duration.ofHours(1)));
+        final BoundedRequestRegistry registry = new BoundedRequestRegistry(new RetentionPolicy(1, 1_000, Duration.ofHours(1)), now::get);
+
+        final ISingleMeasureRequest flood = controller.findSingleCountryIndicator("flood", "Greece", "Flood");
+        final ISingleMeasureRequest storm = controller.findSingleCountryIndicator("storm", "Greece", "Storm");
+
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        registry.register(flood, () -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return flood;
+        });
+        registry.register(storm, () -> storm);
+
+        // "flood" was evicted by "storm"; its recomputation blocks until it is released
+        final AtomicReference<ISingleMeasureRequest> recomputed = new AtomicReference<>();
+        final Thread lookup = new Thread(() -> recomputed.set(registry.get("flood")));
+        lookup.start();
+        try {
+            started.await();
+
+            Assert.assertSame(storm, registry.get("storm"));
+            registry.register(storm, () -> storm);
+            Assert.assertEquals(1, registry.metrics().getRecomputations());
+        } finally {
+            release.countDown();
+            lookup.join();
+        }
+
+        Assert.assertSame(flood, recomputed.get());
+        Assert.assertSame(flood, registry.get("flood"));
+        Assert.assertEquals(1, registry.metrics().getRecomputations());
+    }
+}
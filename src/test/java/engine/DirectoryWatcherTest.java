@@ -0,0 +1,64 @@
+package engine;
+
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+import org.junit.Assert;
+
+import engine.IMainControllerFactory.ControllerTypeEnum;
+
+import dom2app.IMeasurementVector;
+
+
+public class DirectoryWatcherTest {
+
+    /**
+     * Drops a file in a watched directory and waits until its rows can be requested
+     */
+    @Test
+    public void testReloadOnNewFile() throws IOException, InterruptedException {
+        final IMainController controller = new IMainControllerFactory().createMainController(ControllerTypeEnum.DEFAULT);
+        Assert.assertFalse(controller.findSingleCountryIndicator("before", "Greece", "TOTAL").isAnsweredFlag());
+
+        final Path directory = Files.createTempDirectory("watched-");
+        final Path file = directory.resolve("gre.tsv");
+        final CountDownLatch reloaded = new CountDownLatch(1);
+        final AtomicReference<Exception> failure = new AtomicReference<>();
+
+        final DirectoryWatcher.Listener listener = new DirectoryWatcher.Listener() {
+            @Override
+            public void reloaded(final Path path, final List<IMeasurementVector> changes) {
+                if (!changes.isEmpty()) reloaded.countDown();
+            }
+
+            @Override
+            public void failed(final Path path, final Exception error) {
+                failure.set(error);
+            }
+        };
+
+        DirectoryWatcher watcher = null;
+        try {
+            watcher = new DirectoryWatcher(controller, directory, listener);
+            Files.copy(Paths.get("src/test/resources/input/gre.tsv"), file, StandardCopyOption.REPLACE_EXISTING);
+
+            Assert.assertTrue(reloaded.await(30, TimeUnit.SECONDS));
+            Assert.assertNull(failure.get());
+            Assert.assertTrue(controller.findSingleCountryIndicator("after", "Greece", "TOTAL").isAnsweredFlag());
+        } finally {
+            if (watcher != null) watcher.close();
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(directory);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package engine;
+
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import java.util.List;
+
+import engine.IMainControllerFactory.ControllerTypeEnum;
+
+import dom2app.IMeasurementVector;
+
+
+/**
+ * A stand-alone benchmark of {@link IMainController#load}
+ * <p>
+ * The rows of ClimateRelatedDisasters.tsv are replicated until the file holds the requested number of rows;
+ * every copy gets a distinct country name so that the database accepts it. The benchmark reports the load
+ * time and the heap retained by the loaded rows, and then the time and heap needed to compute the statistics
+ * and the regression of every row, i.e. the work that used to happen eagerly during the load.
+ * <p>
+ * Usage: {@code java engine.LoadBenchmark [rows] [runs]}; run it with a fixed heap (e.g. -Xms2g -Xmx2g).
+ */
+public class LoadBenchmark {
+
+    final private static Path SOURCE = Paths.get("src/test/resources/input/ClimateRelatedDisasters.tsv");
+
+    public static void main(final String[] args) throws IOException {
+        final int rows = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        final int runs = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        final Path input = scale(SOURCE, rows);
+
+        try {
+            for (int run = 1; run <= runs; run++) {
+                final IMainController controller = new IMainControllerFactory().createMainController(ControllerTypeEnum.DEFAULT);
+
+                final long heapBefore = usedHeap();
+                long start = System.nanoTime();
+                final List<IMeasurementVector> vectors = controller.load(input.toString(), "\t");
+                final long loadNanos = System.nanoTime() - start;
+                final long heapAfterLoad = usedHeap();
+
+                start = System.nanoTime();
+                for (final IMeasurementVector vector : vectors) {
+                    vector.getDescriptiveStatsAsString();
+                    vector.getRegressionResultAsString();
+                }
+                final long analyticsNanos = System.nanoTime() - start;
+                final long heapAfterAnalytics = usedHeap();
+
+                System.out.printf(
+                    "run %d: %d rows | load %.1f ms, retained %.1f MB | +analytics %.1f ms, retained %.1f MB%n",
+                    run, vectors.size(),
+                    loadNanos / 1e6, (heapAfterLoad - heapBefore) / 1e6,
+                    analyticsNanos / 1e6, (heapAfterAnalytics - heapBefore) / 1e6
+                );
+            }
+        } finally {
+            Files.deleteIfExists(input);
+        }
+    }
+
+    /**
+     * Writes a temporary copy of the source file that contains (at least) the given number of data rows
+     */
+    public static Path scale(final Path source, final int rows) throws IOException {
+        final List<String> lines = Files.readAllLines(source);
+        final Path output = Files.createTempFile("disasters-", ".tsv");
+
+        try (final BufferedWriter writer = Files.newBufferedWriter(output)) {
+            writer.write(lines.get(0));
+            writer.newLine();
+
+            int id = 0;
+            for (int copy = 0; id < rows; copy++) {
+                for (int i = 1; i < lines.size() && id < rows; i++) {
+                    final String[] fields = lines.get(i).split("\t", -1);
+                    fields[0] = Integer.toString(++id);
+                    if (copy > 0) fields[1] = fields[1] + " #" + copy;
+                    writer.write(String.join("\t", fields));
+                    writer.newLine();
+                }
+            }
+        }
+
+        return output;
+    }
+
+    /**
+     * Returns the heap in use after a best-effort garbage collection
+     */
+    final static long usedHeap() {
+        final Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -2,10 +2,18 @@ package engine;
 
 
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.math3.util.Pair;
 
 import org.junit.Test;
 import org.junit.Assert;
@@ -51,6 +59,70 @@ public class MainControllerTest {
         }
     }
 
+    @Test
+    public void testReload() throws IOException {
+        IMainController controller = factory.createMainController(ControllerTypeEnum.DEFAULT);
+        controller.load("src/test/resources/input/gre.tsv", "\t");
+
+        Assert.assertTrue(controller.reload("src/test/resources/input/gre.tsv", "\t").isEmpty());
+
+        IMeasurementVector flood = controller.findSingleCountryIndicator("flood", "Greece", "Flood").getAnswer();
+
+        // a new year column for one row and two new countries
+        List<String> lines = new ArrayList<>(Files.readAllLines(Paths.get("src/test/resources/input/gre.tsv")));
+        lines.set(0, lines.get(0).trim() + "\t2023");
+        for (int i = 0; i < lines.size(); i++) {
+            if (lines.get(i).startsWith("349\t")) lines.set(i, lines.get(i).trim() + "\t7");
+        }
+        List<String> austr = Files.readAllLines(Paths.get("src/test/resources/input/austr.tsv"));
+        lines.addAll(austr.subList(1, austr.size()));
+
+        Path refreshed = Files.createTempFile("refreshed-", ".tsv");
+        try {
+            Files.write(refreshed, lines);
+
+            List<IMeasurementVector> changes = controller.reload(refreshed.toString(), "\t");
+            Assert.assertEquals(1 + austr.size() - 1, changes.size());
+            Assert.assertTrue(controller.reload(refreshed.toString(), "\t").isEmpty());
+        } finally {
+            Files.deleteIfExists(refreshed);
+        }
+
+        ISingleMeasureRequest wildfire = controller.findSingleCountryIndicator("wildfire", "Greece", "Wildfire");
+        List<Pair<Integer, Integer>> measurements = wildfire.getAnswer().getMeasurements();
+        Assert.assertEquals(new Pair<>(2023, 7), measurements.get(measurements.size() - 1));
+
+        Assert.assertSame(flood, controller.findSingleCountryIndicator("flood again", "Greece", "Flood").getAnswer());
+        Assert.assertTrue(controller.findSingleCountryIndicator("austria", "Austria", "Flood").isAnsweredFlag());
+    }
+
+    @Test
+    public void testConcurrentRequests() throws IOException, InterruptedException {
+        IMainController controller = factory.createMainController(ControllerTypeEnum.CONCURRENT);
+        controller.load("src/test/resources/input/ClimateRelatedDisasters.tsv", "\t");
+
+        int threads = 4;
+        int requestsPerThread = 2000;
+        List<Thread> workers = new ArrayList<>();
+        AtomicInteger failures = new AtomicInteger();
+
+        for (int t = 0; t < threads; t++) {
+            String prefix = "thread-" + t + "-";
+            workers.add(new Thread(() -> {
+                for (int i = 0; i < requestsPerThread; i++) {
+                    ISingleMeasureRequest request = controller.findSingleCountryIndicator(prefix + i, "Greece", "Flood");
+                    if (!request.isAnsweredFlag() || controller.getRequestByName(prefix + i) != request) failures.incrementAndGet();
+                }
+            }));
+        }
+
+        for (Thread worker : workers) worker.start();
+        for (Thread worker : workers) worker.join();
+
+        Assert.assertEquals(0, failures.get());
+        Assert.assertEquals(threads * requestsPerThread, controller.getAllRequestNames().size());
+    }
+
     @Test
     public void testFindSingleCountryIndicator() throws IOException {
         IMainController controller = factory.createMainController(ControllerTypeEnum.DEFAULT);
@@ -106,6 +178,77 @@ public class MainControllerTest {
         Assert.assertEquals(request, request2);
     }
 
+    @Test
+    public void testRequestNameSemantics() throws IOException {
+        IMainController controller = factory.createMainController(ControllerTypeEnum.DEFAULT);
+        controller.load("src/test/resources/input/gre.tsv", "\t");
+
+        controller.findSingleCountryIndicator("greece", "Greece", "Flood");
+        ISingleMeasureRequest latest = controller.findSingleCountryIndicator("greece", "Greece", "Storm");
+
+        // names are compared with equals, not by reference
+        Assert.assertSame(latest, controller.getRequestByName(new String("greece")));
+        Assert.assertNull(controller.getRequestByName("missing"));
+
+        Set<String> names = controller.getAllRequestNames();
+        Assert.assertEquals(1, names.size());
+        controller.findSingleCountryIndicator("grenada", "Grenada", "Storm");
+        Assert.assertTrue(names.contains("grenada"));
+    }
+
+    @Test
+    public void testResampledRequests() throws IOException {
+        IMainController controller = factory.createMainController(ControllerTypeEnum.DEFAULT);
+        controller.load("src/test/resources/input/gre.tsv", "\t");
+
+        List<Pair<Integer, Integer>> yearly = controller.findSingleCountryIndicator("yearly", "Greece", "TOTAL").getAnswer().getMeasurements();
+        int total = yearly.stream().mapToInt(Pair::getSecond).sum();
+
+        ISingleMeasureRequest decades = controller.findBucketedCountryIndicator("decades", "Greece", "TOTAL", 10);
+        Assert.assertEquals("Country ~ Greece | Indicator : TOTAL | 10-year buckets", decades.getRequestFilter());
+        Assert.assertEquals(total, decades.getAnswer().getMeasurements().stream().mapToInt(Pair::getSecond).sum());
+        Assert.assertTrue(decades.getAnswer().getMeasurements().stream().allMatch(pair -> pair.getFirst() % 10 == 0));
+
+        ISingleMeasureRequest rolling = controller.findRollingCountryIndicator("rolling", "Greece", "TOTAL", 1);
+        Assert.assertEquals(yearly, rolling.getAnswer().getMeasurements());
+
+        Assert.assertTrue(controller.getAllRequestNames().containsAll(Arrays.asList("decades", "rolling")));
+        Assert.assertFalse(controller.findBucketedCountryIndicator("missing", "Greece", "Meteor", 5).isAnsweredFlag());
+    }
+
+    @Test
+    public void testTopRanked() throws IOException {
+        IMainController controller = factory.createMainController(ControllerTypeEnum.DEFAULT);
+        List<IMeasurementVector> entries = controller.load("src/test/resources/input/ClimateRelatedDisasters.tsv", "\t");
+
+        List<IMeasurementVector> top = controller.findTopRankedYearRange("Flood", "slope", 20, 2000, 2022);
+        Assert.assertEquals(20, top.size());
+
+        // the slopes over the range, as the regression of the answers reports them, by a full sort
+        List<Double> expected = new ArrayList<>();
+        for (IMeasurementVector entry : entries) {
+            if (!entry.getIndicatorString().equals("Flood")) continue;
+            double slope = ((NaturalDisaster) entry).getRangeIndex().statistics(2000, 2022).getRegressingSlope();
+            if (!Double.isNaN(slope)) expected.add(slope);
+        }
+        expected.sort(Collections.reverseOrder());
+
+        for (int i = 0; i < top.size(); i++) {
+            NaturalDisaster answer = (NaturalDisaster) top.get(i);
+            Assert.assertEquals("Flood", answer.getIndicatorString());
+            Assert.assertTrue(answer.getMeasurements().stream().allMatch(pair -> pair.getFirst() >= 2000));
+            Assert.assertEquals(expected.get(i), answer.getRegression().getRegressingSlope(), 1e-9);
+        }
+
+        Assert.assertTrue(controller.findTopRanked("Meteor", "total", 5).isEmpty());
+        Assert.assertTrue(controller.findTopRanked(null, "total", 5).stream().noneMatch(entry -> entry.getIndicatorString().equals("TOTAL")));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownRankingCriterion() throws IOException {
+        factory.createMainController(ControllerTypeEnum.DEFAULT).findTopRanked("Flood", "median", 5);
+    }
+
     @Test
     public void testGetDescriptiveStats() throws IOException {
         IMainController controller = factory.createMainController(ControllerTypeEnum.DEFAULT);
@@ -0,0 +1,91 @@
+package engine;
+
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+import engine.IMainControllerFactory.ControllerTypeEnum;
+
+import dom2app.IMeasurementVector;
+
+
+/**
+ * A stand-alone benchmark of the query throughput of a shared {@code CONCURRENT} controller
+ * <p>
+ * ClimateRelatedDisasters.tsv is loaded once; then 1, 2, 4, ... threads, up to twice the number of cores, issue
+ * {@link IMainController#findSingleCountryIndicator} requests for random rows, each followed by a lookup of the
+ * request by name, for a fixed duration. Every thread cycles through a bounded set of request names, so the
+ * registry stays the same size. The benchmark reports the requests per second of every thread count after a
+ * warm-up round.
+ * <p>
+ * Usage: {@code java engine.QueryThroughputBenchmark [seconds per round]}
+ */
+public class QueryThroughputBenchmark {
+
+    final private static int NAMES_PER_THREAD = 1 << 10;
+
+    public static void main(final String[] args) throws IOException, InterruptedException {
+        final long nanosPerRound = (long) ((args.length > 0 ? Double.parseDouble(args[0]) : 2.0) * 1e9);
+
+        final IMainController controller = new IMainControllerFactory().createMainController(ControllerTypeEnum.CONCURRENT);
+        final List<IMeasurementVector> rows = controller.load(
+            Paths.get("src/test/resources/input/ClimateRelatedDisasters.tsv").toString(), "\t"
+        );
+
+        run(controller, rows, 1, nanosPerRound); // warm-up
+
+        final int maxThreads = 2 * Runtime.getRuntime().availableProcessors();
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            final double throughput = run(controller, rows, threads, nanosPerRound);
+            System.out.printf("%2d threads: %,.0f requests/s%n", threads, throughput);
+        }
+    }
+
+    /**
+     * Runs a round of requests and returns the requests per second
+     */
+    final private static double run(
+        final IMainController controller, 
+        final List<IMeasurementVector> rows, 
+        final int threads, 
+        final long nanos
+    ) throws InterruptedException {
+        final LongAdder requests = new LongAdder();
+        final CountDownLatch start = new CountDownLatch(1);
+        final Thread[] workers = new Thread[threads];
+
+        for (int t = 0; t < threads; t++) {
+            final String prefix = "thread-" + t + "-";
+            workers[t] = new Thread(() -> {
+                final ThreadLocalRandom random = ThreadLocalRandom.current();
+                try {
+                    start.await();
+                } catch (final InterruptedException e) {
+                    return;
+                }
+
+                final long deadline = System.nanoTime() + nanos;
+                long count = 0;
+                while (System.nanoTime() < deadline) {
+                    final IMeasurementVector row = rows.get(random.nextInt(rows.size()));
+                    final String name = prefix + (count & (NAMES_PER_THREAD - 1));
+                    controller.findSingleCountryIndicator(name, row.getCountryName(), row.getIndicatorString());
+                    if (controller.getRequestByName(name) == null) throw new AssertionError("Lost request " + name);
+                    count += 1;
+                }
+                requests.add(count);
+            });
+            workers[t].start();
+        }
+
+        start.countDown();
+        for (final Thread worker : workers) worker.join();
+
+        return requests.sum() / (nanos / 1e9);
+    }
+}
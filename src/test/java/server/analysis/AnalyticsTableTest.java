@@ -0,0 +1,89 @@
+package server.analysis;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import server.analysis.AnalyticsTable.Column;
+import server.commons.NaturalDisaster;
+import server.parsing.ParserFactory;
+import server.parsing.ParserFactory.ParserType;
+
+public class AnalyticsTableTest {
+
+    private static final double EPSILON = 1e-9;
+
+    private List<NaturalDisaster> disasters;
+
+    @Before
+    public void loadDisasters() throws IOException {
+        Path path = Paths.get("./src/test/resources/input/ClimateRelatedDisasters.tsv");
+        disasters = ParserFactory.create(ParserType.TSV).parse(path, 1, 1980);
+    }
+
+    /**
+     * Compares every cell of the table, over all the years and over a window, with the engines of the row
+     */
+    @Test
+    public void testAgainstEngines() {
+        AnalyticsTable<NaturalDisaster> all = AnalyticsTable.compute(disasters, NaturalDisaster::getTimeSeries);
+        AnalyticsTable<NaturalDisaster> window = AnalyticsTable.compute(disasters, NaturalDisaster::getTimeSeries, 2000, 2015);
+
+        Assert.assertEquals(disasters.size(), all.size());
+        for (int row = 0; row < disasters.size(); row++) {
+            assertRow(disasters.get(row), all, row);
+            assertRow(disasters.get(row).filter(2000, 2015), window, row);
+            Assert.assertSame(disasters.get(row), window.getRow(row));
+        }
+    }
+
+    private static void assertRow(NaturalDisaster disaster, AnalyticsTable<NaturalDisaster> table, int row) {
+        StatisticsEngine statistics = new StatisticsEngine(disaster.getTimeSeries());
+        RegressionEngine regression = new RegressionEngine(disaster.getTimeSeries());
+
+        Assert.assertEquals(statistics.getNumberOfValues(), table.get(row, Column.COUNT), 0.0);
+        Assert.assertEquals(statistics.getTotalOccurences(), table.get(row, Column.TOTAL), 0.0);
+        assertClose(statistics.getMean(), table.get(row, Column.MEAN));
+        assertClose(statistics.getVariance(), table.get(row, Column.VARIANCE));
+        assertClose(regression.getRegressingSlope(), table.get(row, Column.SLOPE));
+        assertClose(regression.getRegressionIntercept(), table.get(row, Column.INTERCEPT));
+        assertClose(regression.getRegressingSlopeError(), table.get(row, Column.SLOPE_ERROR));
+    }
+
+    /**
+     * Sorts the Flood rows by slope and keeps the increasing ones
+     */
+    @Test
+    public void testSortAndFilter() {
+        AnalyticsTable<NaturalDisaster> table = AnalyticsTable.compute(disasters, NaturalDisaster::getTimeSeries)
+            .filter(Column.COUNT, count -> count >= 3);
+
+        AnalyticsTable<NaturalDisaster> increasing = table.filter(Column.SLOPE, slope -> slope > 0).sortedBy(Column.SLOPE, true);
+
+        Assert.assertTrue(increasing.size() > 0);
+        for (int row = 0; row < increasing.size(); row++) {
+            Assert.assertTrue(increasing.get(row, Column.SLOPE) > 0);
+            if (row > 0) Assert.assertTrue(increasing.get(row - 1, Column.SLOPE) >= increasing.get(row, Column.SLOPE));
+            Assert.assertEquals(
+                increasing.getRow(row).getRegression().getRegressingSlope(), increasing.get(row, Column.SLOPE), 1e-9
+            );
+        }
+
+        AnalyticsTable<NaturalDisaster> ascending = table.sortedBy(Column.SLOPE, false);
+        Assert.assertEquals(table.size(), ascending.size());
+        Assert.assertTrue(Double.isNaN(AnalyticsTable.compute(disasters.subList(0, 1), d -> d.filter(1800, 1801).getTimeSeries()).get(0, Column.SLOPE)));
+    }
+
+    private static void assertClose(double expected, double actual) {
+        if (Double.isNaN(expected)) {
+            Assert.assertTrue(Double.isNaN(actual));
+        } else {
+            Assert.assertEquals(expected, actual, EPSILON * Math.max(1.0, Math.abs(expected)));
+        }
+    }
+}
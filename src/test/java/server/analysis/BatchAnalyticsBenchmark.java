@@ -0,0 +1,67 @@
+package server.analysis;
+
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+import engine.LoadBenchmark;
+
+import server.analysis.AnalyticsTable.Column;
+import server.commons.NaturalDisaster;
+import server.parsing.ParserFactory;
+import server.parsing.ParserFactory.ParserType;
+
+
+/**
+ * A stand-alone comparison of the analytics of every row computed by one engine pair per row and by one batch
+ * <p>
+ * The rows of ClimateRelatedDisasters.tsv are replicated until the file holds the requested number of rows, see
+ * {@link LoadBenchmark#scale}. Every run computes the mean, variance, slope, intercept and slope error of every
+ * row both ways; the benchmark reports the best time of each.
+ * <p>
+ * Usage: {@code java server.analysis.BatchAnalyticsBenchmark [rows] [runs]}
+ */
+public class BatchAnalyticsBenchmark {
+
+    final private static Path SOURCE = Paths.get("src/test/resources/input/ClimateRelatedDisasters.tsv");
+
+    public static void main(final String[] args) throws IOException {
+        final int rows = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        final int runs = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        final Path text = LoadBenchmark.scale(SOURCE, rows);
+        final List<NaturalDisaster> disasters;
+        try {
+            disasters = ParserFactory.create(ParserType.TSV).parse(text, 1, 1980);
+        } finally {
+            Files.deleteIfExists(text);
+        }
+
+        long bestEngines = Long.MAX_VALUE;
+        long bestBatch = Long.MAX_VALUE;
+        double checksum = 0;
+        for (int run = 0; run < runs; run++) {
+            long start = System.nanoTime();
+            for (final NaturalDisaster disaster : disasters) {
+                final StatisticsEngine statistics = new StatisticsEngine(disaster.getTimeSeries());
+                final RegressionEngine regression = new RegressionEngine(disaster.getTimeSeries());
+                checksum += statistics.getMean() + statistics.getVariance() + regression.getRegressingSlope() 
+                          + regression.getRegressionIntercept() + regression.getRegressingSlopeError();
+            }
+            bestEngines = Math.min(bestEngines, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            final AnalyticsTable<NaturalDisaster> table = AnalyticsTable.compute(disasters, NaturalDisaster::getTimeSeries);
+            bestBatch = Math.min(bestBatch, System.nanoTime() - start);
+            checksum += table.get(0, Column.SLOPE);
+        }
+
+        System.out.printf(
+            "%d rows | engines %.1f ms | batch %.1f ms | %.1fx faster (checksum %s)%n",
+            disasters.size(), bestEngines / 1e6, bestBatch / 1e6, (double) bestEngines / bestBatch, checksum
+        );
+    }
+}
@@ -0,0 +1,97 @@
+package server.analysis;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import server.commons.NaturalDisaster;
+import server.parsing.ParserFactory;
+import server.parsing.ParserFactory.ParserType;
+
+public class RangeIndexTest {
+
+    private static final double EPSILON = 1e-9;
+
+    private List<NaturalDisaster> disasters;
+
+    @Before
+    public void loadDisasters() throws IOException {
+        Path path = Paths.get("./src/test/resources/input/ClimateRelatedDisasters.tsv");
+        disasters = ParserFactory.create(ParserType.TSV).parse(path, 1, 1980);
+    }
+
+    /**
+     * Compares the statistics of the index with the engines over the filtered measurements, for several windows
+     */
+    @Test
+    public void testAgainstFilteredEngines() {
+        int[][] windows = {{1900, 2100}, {1980, 1980}, {1995, 2018}, {2000, 2009}, {2021, 2030}, {1800, 1900}};
+
+        for (NaturalDisaster disaster: disasters) {
+            for (int[] window: windows) {
+                NaturalDisaster filtered = disaster.filter(window[0], window[1]);
+                RangeStatistics statistics = disaster.getRangeIndex().statistics(window[0], window[1]);
+
+                StatisticsEngine expected = filtered.getStatistics();
+                RegressionEngine regression = filtered.getRegression();
+
+                Assert.assertEquals(expected.getNumberOfValues(), statistics.getNumberOfValues());
+                Assert.assertEquals(expected.getTotalOccurences(), statistics.getTotalOccurences(), 0.0);
+                assertClose(expected.getMean(), statistics.getMean());
+                assertClose(expected.getVariance(), statistics.getVariance());
+                assertClose(regression.getRegressingSlope(), statistics.getRegressingSlope());
+                assertClose(regression.getRegressionIntercept(), statistics.getRegressionIntercept());
+                if (statistics.getNumberOfValues() > 2) 
+                    Assert.assertEquals(regression.getRegressingSlopeError(), statistics.getRegressingSlopeError(), 1e-6);
+
+                long nonZero = filtered.getMeasurements().stream().filter(pair -> pair.getSecond() != 0).count();
+                Assert.assertEquals(nonZero, statistics.getNumberOfNonZeroValues());
+            }
+        }
+    }
+
+    /**
+     * On values that lie exactly on a line the index reports no slope error at all, where the engine reports at
+     * most rounding noise, and both agree on a row that is only nearly linear
+     */
+    @Test
+    public void testPerfectlyLinearAgainstEngine() {
+        int[] years = {1990, 1991, 1992, 1993, 1994, 1995, 1996, 1997};
+        int[] line  = {10007, 10010, 10013, 10016, 10019, 10022, 10025, 10028};
+        int[] near  = {10007, 10010, 10013, 10016, 10019, 10022, 10025, 10029};
+
+        NaturalDisaster linear = NaturalDisaster.create(1, "Greece", "GR", "GRC", "Flood", years, line, years.length);
+        RangeStatistics statistics = linear.getRangeIndex().statistics(1990, 1997);
+        RegressionEngine regression = linear.getRegression();
+
+        Assert.assertEquals(0.0, statistics.getRegressingSlopeError(), 0.0);
+        Assert.assertEquals(regression.getRegressingSlopeError(), statistics.getRegressingSlopeError(), 1e-6);
+        assertClose(regression.getRegressingSlope(), statistics.getRegressingSlope());
+        Assert.assertTrue(Double.isNaN(statistics.getSlopeSignificance()));
+
+        NaturalDisaster nearly = NaturalDisaster.create(2, "Greece", "GR", "GRC", "Storm", years, near, years.length);
+        statistics = nearly.getRangeIndex().statistics(1990, 1997);
+        regression = nearly.getRegression();
+
+        assertClose(regression.getRegressingSlopeError(), statistics.getRegressingSlopeError());
+        assertClose(regression.getRegressingSlope() / regression.getRegressingSlopeError(), statistics.getSlopeSignificance());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testReversedWindow() {
+        disasters.get(0).getRangeIndex().statistics(2000, 1999);
+    }
+
+    private static void assertClose(double expected, double actual) {
+        if (Double.isNaN(expected)) {
+            Assert.assertTrue(Double.isNaN(actual));
+        } else {
+            Assert.assertEquals(expected, actual, EPSILON * Math.max(1.0, Math.abs(expected)));
+        }
+    }
+}
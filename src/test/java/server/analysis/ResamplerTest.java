@@ -0,0 +1,88 @@
+package server.analysis;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+import org.apache.commons.math3.util.Pair;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import server.commons.NaturalDisaster;
+import server.parsing.ParserFactory;
+import server.parsing.ParserFactory.ParserType;
+
+public class ResamplerTest {
+
+    private List<NaturalDisaster> disasters;
+
+    @Before
+    public void loadDisasters() throws IOException {
+        Path path = Paths.get("./src/test/resources/input/ClimateRelatedDisasters.tsv");
+        disasters = ParserFactory.create(ParserType.TSV).parse(path, 1, 1980);
+    }
+
+    /**
+     * Compares the buckets and the rolling windows of every row with a direct computation over its pairs
+     */
+    @Test
+    public void testAgainstDirectComputation() {
+        Resampler resampler = new Resampler();
+
+        for (int width: new int[] {1, 3, 5, 10}) {
+            for (NaturalDisaster disaster: disasters) {
+                List<Pair<Integer, Integer>> pairs = disaster.getMeasurements();
+
+                int buckets = resampler.bucket(disaster.getTimeSeries(), width);
+                int index = 0;
+                for (int start = 1980; start <= 2022; start += width) {
+                    if (!check(resampler, index, start, pairs, start, start + width - 1)) continue;
+                    index += 1;
+                }
+                Assert.assertEquals(index, buckets);
+
+                int windows = resampler.roll(disaster.getTimeSeries(), width);
+                index = 0;
+                if (!pairs.isEmpty()) {
+                    int first = pairs.get(0).getFirst();
+                    int last = pairs.get(pairs.size() - 1).getFirst();
+                    for (int end = first + width - 1; end <= last; end++) {
+                        if (!check(resampler, index, end, pairs, end - width + 1, end)) continue;
+                        index += 1;
+                    }
+                }
+                Assert.assertEquals(index, windows);
+            }
+        }
+    }
+
+    /**
+     * Checks a result of the resampler against the pairs in [from, to]
+     * @return false if there are no pairs in [from, to]
+     */
+    private static boolean check(Resampler resampler, int index, int year, List<Pair<Integer, Integer>> pairs, int from, int to) {
+        long sum = 0;
+        int count = 0;
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        for (Pair<Integer, Integer> pair: pairs) {
+            if (pair.getFirst() < from || pair.getFirst() > to) continue;
+            sum += pair.getSecond();
+            count += 1;
+            min = Math.min(min, pair.getSecond());
+            max = Math.max(max, pair.getSecond());
+        }
+        if (count == 0) return false;
+
+        Assert.assertEquals(year, resampler.getYear(index));
+        Assert.assertEquals(sum, resampler.getSum(index));
+        Assert.assertEquals(count, resampler.getCount(index));
+        Assert.assertEquals((double) sum / count, resampler.getMean(index), 0.0);
+        Assert.assertEquals(min, resampler.getMin(index));
+        Assert.assertEquals(max, resampler.getMax(index));
+        return true;
+    }
+}
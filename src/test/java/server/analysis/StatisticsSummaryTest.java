@@ -0,0 +1,134 @@
+package server.analysis;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics;
+import org.apache.commons.math3.stat.regression.SimpleRegression;
+import org.apache.commons.math3.util.Pair;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import server.commons.NaturalDisaster;
+import server.parsing.ParserFactory;
+import server.parsing.ParserFactory.ParserType;
+
+public class StatisticsSummaryTest {
+
+    private static final double EPSILON = 1e-9;
+
+    private List<NaturalDisaster> floods;
+
+    @Before
+    public void loadFloods() throws IOException {
+        Path path = Paths.get("./src/test/resources/input/ClimateRelatedDisasters.tsv");
+        floods = ParserFactory.create(ParserType.TSV).parse(path, 1, 1980).stream()
+                              .filter(disaster -> disaster.getIndicatorString().equals("Flood"))
+                              .collect(Collectors.toList());
+    }
+
+    /**
+     * Merges the summaries of all the Flood rows and compares them with statistics over all their values
+     */
+    @Test
+    public void testMergeAll() {
+        DescriptiveStatistics expectedStatistics = new DescriptiveStatistics();
+        SimpleRegression expectedRegression = new SimpleRegression();
+        List<StatisticsSummary> statistics = new ArrayList<>();
+        List<RegressionSummary> regressions = new ArrayList<>();
+
+        for (NaturalDisaster flood: floods) {
+            for (Pair<Integer, Integer> pair: flood.getMeasurements()) {
+                expectedStatistics.addValue(pair.getSecond());
+                expectedRegression.addData(pair.getFirst(), pair.getSecond());
+            }
+            statistics.add(flood.getStatistics().getSummary());
+            regressions.add(flood.getRegression().getSummary());
+        }
+
+        StatisticsSummary summary = StatisticsSummary.mergeAll(statistics);
+
+        Assert.assertEquals(expectedStatistics.getN(), summary.getNumberOfValues());
+        Assert.assertEquals(expectedStatistics.getSum(), summary.getTotalOccurences(), 0.0);
+        Assert.assertEquals(expectedStatistics.getMin(), summary.getMin(), 0.0);
+        Assert.assertEquals(expectedStatistics.getMax(), summary.getMax(), 0.0);
+        Assert.assertEquals(expectedStatistics.getPercentile(50), summary.getMedian(), 0.0);
+        Assert.assertEquals(expectedStatistics.getMean(), summary.getMean(), EPSILON);
+        Assert.assertEquals(expectedStatistics.getVariance(), summary.getVariance(), EPSILON);
+        Assert.assertEquals(expectedStatistics.getSkewness(), summary.getSkewness(), EPSILON);
+        Assert.assertEquals(expectedStatistics.getKurtosis(), summary.getKurtosis(), EPSILON);
+
+        RegressionSummary regression = RegressionSummary.mergeAll(regressions);
+
+        Assert.assertEquals(expectedRegression.getN(), regression.getN());
+        Assert.assertEquals(expectedRegression.getSlope(), regression.getRegressingSlope(), EPSILON);
+        Assert.assertEquals(expectedRegression.getIntercept(), regression.getRegressionIntercept(), 1e-6);
+        Assert.assertEquals(expectedRegression.getSlopeStdErr(), regression.getRegressingSlopeError(), EPSILON);
+    }
+
+    /**
+     * Checks that a parallel reduction over many summaries agrees with a sequential one
+     */
+    @Test
+    public void testMergeAllInParallel() {
+        List<StatisticsSummary> summaries = new ArrayList<>();
+        for (NaturalDisaster flood: floods)
+            summaries.add(flood.getStatistics().getSummary());
+
+        List<StatisticsSummary> manySummaries = Collections.nCopies(50, summaries).stream()
+                                                           .flatMap(List::stream)
+                                                           .collect(Collectors.toList());
+
+        StatisticsSummary sequential = StatisticsSummary.EMPTY;
+        for (StatisticsSummary summary: manySummaries)
+            sequential = sequential.merge(summary);
+
+        StatisticsSummary parallel = StatisticsSummary.mergeAll(manySummaries);
+
+        Assert.assertEquals(50 * StatisticsSummary.mergeAll(summaries).getNumberOfValues(), parallel.getNumberOfValues());
+        Assert.assertEquals(sequential.getTotalOccurences(), parallel.getTotalOccurences(), 0.0);
+        Assert.assertEquals(sequential.getMedian(), parallel.getMedian(), 0.0);
+
+        // the moments are merged pairwise, so a different merge order only changes their rounding
+        Assert.assertEquals(sequential.getMean(), parallel.getMean(), EPSILON);
+        Assert.assertEquals(sequential.getVariance(), parallel.getVariance(), EPSILON);
+        Assert.assertEquals(sequential.getSkewness(), parallel.getSkewness(), EPSILON);
+        Assert.assertEquals(sequential.getKurtosis(), parallel.getKurtosis(), EPSILON);
+    }
+
+    /**
+     * Merges many summaries of large values with a small spread, where moments rebuilt from raw power sums would
+     * cancel catastrophically, and compares them with statistics over all the values
+     */
+    @Test
+    public void testMergeLargeValues() {
+        Random random = new Random(7);
+        DescriptiveStatistics expected = new DescriptiveStatistics();
+        List<StatisticsSummary> summaries = new ArrayList<>();
+
+        for (int row = 0; row < 1000; row++) {
+            StreamingStatistics statistics = new StreamingStatistics();
+            for (int i = 0; i < 100; i++) {
+                int value = 1_000_000 + (int) Math.round(50 * random.nextGaussian() + 40 * random.nextDouble() * random.nextDouble());
+                statistics.add(value);
+                expected.addValue(value);
+            }
+            summaries.add(new StatisticsSummary(statistics));
+        }
+
+        StatisticsSummary summary = StatisticsSummary.mergeAll(summaries);
+
+        Assert.assertEquals(expected.getMean(), summary.getMean(), EPSILON);
+        Assert.assertEquals(expected.getVariance(), summary.getVariance(), 1e-9 * expected.getVariance());
+        Assert.assertEquals(expected.getSkewness(), summary.getSkewness(), 1e-6);
+        Assert.assertEquals(expected.getKurtosis(), summary.getKurtosis(), 1e-6);
+    }
+}
@@ -0,0 +1,84 @@
+package server.analysis;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import server.commons.NaturalDisaster;
+
+public class TopKTest {
+
+    /**
+     * Compares the selection with a full stable sort, below and above the parallel threshold, with many ties
+     */
+    @Test
+    public void testAgainstFullSort() {
+        Random random = new Random(42);
+
+        for (int size : new int[] {0, 1, 10, 1000, 50_000}) {
+            List<Double> scores = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) scores.add(i % 17 == 0 ? Double.NaN : (double) random.nextInt(500));
+
+            for (int k : new int[] {1, 5, 100, size + 1}) {
+                if (k <= 0) continue;
+
+                List<Integer> expected = new ArrayList<>();
+                for (int i = 0; i < size; i++) if (!scores.get(i).isNaN()) expected.add(i);
+                expected.sort(Comparator.comparingDouble((Integer i) -> scores.get(i)).reversed());
+                expected = expected.subList(0, Math.min(k, expected.size()));
+
+                List<Integer> indices = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) indices.add(i);
+
+                Assert.assertEquals(expected, TopK.select(indices, scores::get, k));
+            }
+        }
+    }
+
+    @Test
+    public void testCriteria() {
+        Assert.assertEquals(RankingCriterion.SIGNIFICANCE, RankingCriterion.forName(" Significance").get());
+        Assert.assertFalse(RankingCriterion.forName("median").isPresent());
+    }
+
+    /**
+     * Values on an exact line have no slope error, so they must not outrank a real trend by significance
+     */
+    @Test
+    public void testPerfectFitSignificance() {
+        NaturalDisaster line  = NaturalDisaster.create(1, "Greece", "GR", "GRC", "Flood", new int[] {2000, 2001, 2002}, new int[] {1, 2, 3}, 3);
+        NaturalDisaster trend = NaturalDisaster.create(2, "Greece", "GR", "GRC", "Storm", new int[] {2000, 2001, 2002, 2003}, new int[] {1, 3, 4, 7}, 4);
+
+        RangeStatistics perfect = line.getRangeIndex().statistics(2000, 2002);
+        Assert.assertEquals(0.0, perfect.getRegressingSlopeError(), 0.0);
+        Assert.assertTrue(Double.isNaN(RankingCriterion.SIGNIFICANCE.score(perfect)));
+
+        List<NaturalDisaster> ranked = TopK.select(
+            Arrays.asList(line, trend), 
+            disaster -> RankingCriterion.SIGNIFICANCE.score(disaster.getRangeIndex().statistics(2000, 2003)), 
+            2
+        );
+        Assert.assertEquals(Arrays.asList(trend), ranked);
+    }
+
+    @Test
+    public void testUnboundedK() {
+        Assert.assertEquals(Arrays.asList(2, 1), TopK.select(Arrays.asList(1, 2), i -> i, Integer.MAX_VALUE));
+        Assert.assertTrue(TopK.select(new ArrayList<Integer>(), i -> i, Integer.MAX_VALUE).isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNullCriterion() {
+        RankingCriterion.forName(null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNonPositiveK() {
+        TopK.select(new ArrayList<Integer>(), i -> i, 0);
+    }
+}
@@ -0,0 +1,78 @@
+package server.commons;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.math3.util.Pair;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TimeSeriesTest {
+
+    /**
+     * Stores values of every width over a span of several bitmap words and reads them back
+     */
+    @Test
+    public void testRoundTrip() {
+        int[][] valueSets = {
+            {0, 1, 7, 255},
+            {3, 256, 65535, 9},
+            {70000, 0, Integer.MAX_VALUE, 12},
+            {-5, 4, Integer.MIN_VALUE, 1}
+        };
+        int[] years = {1900, 1901, 1990, 2030};
+
+        for (int[] values: valueSets) {
+            TimeSeries series = TimeSeries.of(years, values, years.length);
+
+            List<Pair<Integer, Integer>> expected = new ArrayList<>();
+            for (int i = 0; i < years.length; i++) {
+                Assert.assertEquals(years[i], series.yearAt(i));
+                Assert.assertEquals(values[i], series.valueAt(i));
+                expected.add(new Pair<>(years[i], values[i]));
+            }
+
+            List<Pair<Integer, Integer>> visited = new ArrayList<>();
+            series.forEach((year, value) -> visited.add(new Pair<>(year, value)));
+
+            Assert.assertEquals(expected, visited);
+            Assert.assertEquals(expected, series.getOccurrences());
+            Assert.assertEquals(new TimeSeries(expected), series);
+            Assert.assertEquals(new TimeSeries(expected).hashCode(), series.hashCode());
+        }
+    }
+
+    /**
+     * Filters windows that start and end inside and outside the series, then filters a window again
+     */
+    @Test
+    public void testFilter() {
+        int[] years  = new int[100];
+        int[] values = new int[100];
+        int length = 0;
+        for (int year = 1900; year < 2100; year += 2) {
+            years[length]  = year;
+            values[length] = year % 7;
+            length += 1;
+        }
+        TimeSeries series = TimeSeries.of(years, values, length);
+
+        int[][] windows = {{1800, 2200}, {1901, 1901}, {1950, 2050}, {1963, 2031}, {2098, 3000}, {1000, 1899}};
+        for (int[] window: windows) {
+            List<Pair<Integer, Integer>> expected = new ArrayList<>();
+            for (int i = 0; i < length; i++)
+                if (years[i] >= window[0] && years[i] <= window[1]) expected.add(new Pair<>(years[i], values[i]));
+
+            TimeSeries filtered = series.filter(window[0], window[1]);
+            Assert.assertEquals(expected, filtered.getOccurrences());
+            Assert.assertEquals(new TimeSeries(expected), filtered);
+            Assert.assertEquals(new TimeSeries(expected).hashCode(), filtered.hashCode());
+        }
+
+        TimeSeries twice = series.filter(1950, 2050).filter(1990, 2100);
+        Assert.assertEquals(series.filter(1990, 2050), twice);
+        Assert.assertEquals(1990, twice.yearAt(0));
+        Assert.assertEquals(2050, twice.yearAt(twice.size() - 1));
+    }
+}
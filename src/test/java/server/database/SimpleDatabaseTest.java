@@ -12,6 +12,8 @@ import dom2app.ISingleMeasureRequest;
 import org.junit.Assert;
 import org.junit.Before;
 
+import server.analysis.RankingCriterion;
+
 import server.commons.NaturalDisaster;
 import server.database.DatabaseFactory.DatabaseType;
 
@@ -117,5 +119,128 @@ public class SimpleDatabaseTest {
         }
         
     }
-    
+
+    /**
+     * Checks that the aggregate of every country matches its TOTAL row, which already sums the disaster types
+     * @throws IOException
+     */
+    @Test
+    public final void testCountryAggregate() throws IOException {
+        List<NaturalDisaster> entries = parser.parse(path, 1, 1980);
+
+        IDatabase database = DatabaseFactory.create(DatabaseType.SimpleDatabase);
+
+        database.addAll(entries);
+
+        for (NaturalDisaster entry: entries) {
+            if (!entry.getType().isTotal()) continue;
+
+            ISingleMeasureRequest request = database.requestCountryAggregate("aggregate"+entry.getCountryName(), entry.getCountryName());
+
+            Assert.assertTrue(request.isAnsweredFlag());
+            Assert.assertEquals(entry.getMeasurements(), request.getAnswer().getMeasurements());
+            Assert.assertEquals(entry.getDescriptiveStatsAsString(), request.getAnswer().getDescriptiveStatsAsString());
+        }
+
+        Assert.assertFalse(database.requestCountryAggregate("missing", "Atlantis").isAnsweredFlag());
+    }
+
+    /**
+     * Checks that the global aggregate matches the aggregate of the TOTAL rows across countries
+     * @throws IOException
+     */
+    @Test
+    public final void testTypeAndGlobalAggregate() throws IOException {
+        IDatabase database = DatabaseFactory.create(DatabaseType.SimpleDatabase);
+
+        database.addAll(parser.parse(path, 1, 1980));
+
+        ISingleMeasureRequest totals = database.requestTypeAggregate("totals", "TOTAL");
+        ISingleMeasureRequest global = database.requestGlobalAggregate("global");
+
+        Assert.assertTrue(totals.isAnsweredFlag());
+        Assert.assertTrue(global.isAnsweredFlag());
+        Assert.assertEquals(totals.getAnswer().getMeasurements(), global.getAnswer().getMeasurements());
+        Assert.assertFalse(database.requestTypeAggregate("missing", "Meteor").isAnsweredFlag());
+    }
+
+    /**
+     * Requests entries by iso codes and by long names written with another case or without accents
+     * @throws IOException
+     */
+    @Test
+    public final void testCountryNameResolution() throws IOException {
+        List<NaturalDisaster> entries = parser.parse(path, 1, 1980);
+
+        IDatabase database = DatabaseFactory.create(DatabaseType.SimpleDatabase);
+
+        database.addAll(entries);
+
+        for (NaturalDisaster entry: entries) {
+            String type = entry.getIndicatorString();
+            String[] names = {
+                entry.getCountry().getIso2(),
+                entry.getCountry().getIso3(),
+                entry.getCountryName().toUpperCase(),
+                "  " + entry.getCountryName().toLowerCase() + " "
+            };
+
+            for (String name: names) {
+                if (name.isEmpty()) continue;
+                Assert.assertEquals(entry, database.request("request-" + name, name, type).getAnswer());
+            }
+        }
+
+        Assert.assertEquals("C\u00f4te d'Ivoire", database.request("ci", "cote d'ivoire", "TOTAL").getAnswer().getCountryName());
+        Assert.assertEquals("T\u00fcrkiye, Rep. of", database.request("tr", "turkiye, rep. of", "TOTAL").getAnswer().getCountryName());
+        Assert.assertFalse(database.request("unknown", "XX", "TOTAL").isAnsweredFlag());
+    }
+
+    /**
+     * Repeats a year-range request, then replaces the requested entry in a copy of the database
+     * @throws IOException
+     */
+    @Test
+    public final void testRangeRequestCache() throws IOException {
+        List<NaturalDisaster> entries = parser.parse(path, 1, 1980);
+
+        IDatabase database = DatabaseFactory.create(DatabaseType.SimpleDatabase);
+
+        database.addAll(entries);
+
+        NaturalDisaster entry = entries.get(123);
+        String country = entry.getCountryName();
+        String type = entry.getIndicatorString();
+
+        ISingleMeasureRequest first = database.request("first", country, type, 1990, 2010);
+        ISingleMeasureRequest second = database.request("second", entry.getCountry().getIso3(), type, 1990, 2010);
+
+        Assert.assertSame(first.getAnswer(), second.getAnswer());
+        Assert.assertEquals(1, database.cacheStatistics().getHits());
+        Assert.assertEquals(1, database.cacheStatistics().getMisses());
+
+        int[] years  = new int[entry.getTimeSeries().size()];
+        int[] counts = new int[years.length];
+        for (int i = 0; i < years.length; i++) {
+            years[i]  = entry.getTimeSeries().yearAt(i);
+            counts[i] = entry.getTimeSeries().valueAt(i) + 1;
+        }
+        IDatabase copy = database.copy();
+        copy.upsert(NaturalDisaster.create(entry.getId(), entry.getCountry(), entry.getType(), years, counts, years.length));
+
+        ISingleMeasureRequest updated = copy.request("updated", country, type, 1990, 2010);
+        Assert.assertNotEquals(first.getAnswer().getMeasurements(), updated.getAnswer().getMeasurements());
+        Assert.assertEquals(2, copy.cacheStatistics().getMisses());
+
+        // the original database still serves the filter of its own entry
+        ISingleMeasureRequest original = database.request("original", country, type, 1990, 2010);
+        Assert.assertEquals(first.getAnswer().getMeasurements(), original.getAnswer().getMeasurements());
+
+        // a ranking filters its results without going through the cache
+        CacheStatistics before = database.cacheStatistics();
+        Assert.assertEquals(5, database.topRanked(type, RankingCriterion.TOTAL, 5, 1990, 2010).size());
+        Assert.assertEquals(before.getHits(), database.cacheStatistics().getHits());
+        Assert.assertEquals(before.getMisses(), database.cacheStatistics().getMisses());
+        Assert.assertEquals(before.getSize(), database.cacheStatistics().getSize());
+    }
 }
@@ -0,0 +1,75 @@
+package server.database;
+
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import engine.IMainController;
+import engine.IMainControllerFactory;
+import engine.IMainControllerFactory.ControllerTypeEnum;
+import engine.LoadBenchmark;
+
+
+/**
+ * A stand-alone comparison of the startup time from a text file and from a snapshot of the same data
+ * <p>
+ * The rows of ClimateRelatedDisasters.tsv are replicated until the file holds the requested number of rows, see
+ * {@link LoadBenchmark#scale}, and a snapshot of them is written once. Every run loads both files into fresh
+ * controllers through {@link IMainController#load}; the benchmark reports the best load time of each file.
+ * <p>
+ * Usage: {@code java server.database.SnapshotBenchmark [rows] [runs]}
+ */
+public class SnapshotBenchmark {
+
+    final private static Path SOURCE = Paths.get("src/test/resources/input/ClimateRelatedDisasters.tsv");
+
+    public static void main(final String[] args) throws IOException {
+        final int rows = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        final int runs = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        final Path text = LoadBenchmark.scale(SOURCE, rows);
+        final Path snapshot = Files.createTempFile("disasters-", ".snapshot");
+
+        try {
+            final IMainController source = newController();
+            source.load(text.toString(), "\t");
+            source.saveSnapshot(snapshot.toString());
+
+            System.out.printf(
+                "%d rows | text %.1f MB | snapshot %.1f MB%n",
+                rows, Files.size(text) / 1e6, Files.size(snapshot) / 1e6
+            );
+
+            long bestText = Long.MAX_VALUE;
+            long bestSnapshot = Long.MAX_VALUE;
+            for (int run = 0; run < runs; run++) {
+                bestText = Math.min(bestText, timeLoad(text));
+                bestSnapshot = Math.min(bestSnapshot, timeLoad(snapshot));
+            }
+
+            System.out.printf(
+                "text %.1f ms | snapshot %.1f ms | %.1fx faster%n",
+                bestText / 1e6, bestSnapshot / 1e6, (double) bestText / bestSnapshot
+            );
+        } finally {
+            Files.deleteIfExists(text);
+            Files.deleteIfExists(snapshot);
+        }
+    }
+
+    final private static IMainController newController() {
+        return new IMainControllerFactory().createMainController(ControllerTypeEnum.DEFAULT);
+    }
+
+    /**
+     * Returns the time, in nanoseconds, that a fresh controller needs to load a file
+     */
+    final private static long timeLoad(final Path file) throws IOException {
+        final IMainController controller = newController();
+        final long start = System.nanoTime();
+        controller.load(file.toString(), "\t");
+        return System.nanoTime() - start;
+    }
+}
@@ -0,0 +1,123 @@
+package server.database;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import dom2app.IMeasurementVector;
+
+import org.junit.Assert;
+
+import engine.IMainController;
+import engine.IMainControllerFactory;
+import engine.IMainControllerFactory.ControllerTypeEnum;
+
+import server.commons.NaturalDisaster;
+
+import server.parsing.ParserFactory;
+import server.parsing.ParserFactory.ParserType;
+
+public class SnapshotTest {
+
+    /**
+     * Writes the whole dataset to a snapshot, reads it back and compares the records
+     * @throws IOException
+     */
+    @Test
+    public final void testRoundTrip() throws IOException {
+        final Path input = Paths.get("./src/test/resources/input/ClimateRelatedDisasters.csv");
+        final List<NaturalDisaster> expected = ParserFactory.create(ParserType.CSV).parse(input, 1, 1980);
+
+        final Path snapshot = Files.createTempFile("disasters-", ".snapshot");
+        try {
+            Snapshot.write(expected, snapshot);
+            Assert.assertFalse(Files.exists(snapshot.resolveSibling(snapshot.getFileName() + ".tmp")));
+            Assert.assertTrue(Snapshot.isSnapshot(snapshot));
+            Assert.assertFalse(Snapshot.isSnapshot(input));
+            Assert.assertTrue(Files.size(snapshot) < Files.size(input) / 2);
+
+            final List<NaturalDisaster> actual = new ArrayList<>();
+            Snapshot.read(snapshot, actual::add);
+
+            Assert.assertEquals(expected.size(), actual.size());
+            for (int i = 0; i < expected.size(); i++) {
+                Assert.assertEquals(expected.get(i).toFullDescription(), actual.get(i).toFullDescription());
+                Assert.assertSame(expected.get(i).getCountry(), actual.get(i).getCountry());
+                Assert.assertSame(expected.get(i).getType(), actual.get(i).getType());
+            }
+        } finally {
+            Files.deleteIfExists(snapshot);
+        }
+    }
+
+    /**
+     * Saves the loaded data of a controller and loads the snapshot into another controller
+     * @throws IOException
+     */
+    @Test
+    public final void testLoadThroughController() throws IOException {
+        final IMainController original = new IMainControllerFactory().createMainController(ControllerTypeEnum.DEFAULT);
+        final List<IMeasurementVector> expected = original.load("src/test/resources/input/ClimateRelatedDisasters.tsv", "\t");
+
+        final Path snapshot = Files.createTempFile("disasters-", ".snapshot");
+        try {
+            original.saveSnapshot(snapshot.toString());
+
+            final IMainController restored = new IMainControllerFactory().createMainController(ControllerTypeEnum.DEFAULT);
+            final List<IMeasurementVector> actual = restored.load(snapshot.toString(), "\t");
+
+            Assert.assertEquals(expected.size(), actual.size());
+            Assert.assertEquals(
+                original.findSingleCountryIndicator("before", "Greece", "TOTAL").getAnswer().getMeasurements(),
+                restored.findSingleCountryIndicator("after", "Greece", "TOTAL").getAnswer().getMeasurements()
+            );
+        } finally {
+            Files.deleteIfExists(snapshot);
+        }
+    }
+
+    /**
+     * Reads a snapshot whose content was altered
+     * @throws IOException
+     */
+    @Test(expected = IOException.class)
+    public final void testCorruptSnapshot() throws IOException {
+        final Path input = Paths.get("./src/test/resources/input/gre.tsv");
+        final Path snapshot = Files.createTempFile("disasters-", ".snapshot");
+        try {
+            Snapshot.write(ParserFactory.create(ParserType.TSV).parse(input, 1, 1980), snapshot);
+
+            final byte[] bytes = Files.readAllBytes(snapshot);
+            bytes[bytes.length / 2] ^= 1;
+            Files.write(snapshot, bytes);
+
+            Snapshot.read(snapshot, disaster -> {});
+        } finally {
+            Files.deleteIfExists(snapshot);
+        }
+    }
+
+    /**
+     * Bytes after the checksum make the snapshot corrupt, even though its content is intact
+     * @throws IOException
+     */
+    @Test(expected = IOException.class)
+    public final void testTrailingBytes() throws IOException {
+        final Path input = Paths.get("./src/test/resources/input/gre.tsv");
+        final Path snapshot = Files.createTempFile("disasters-", ".snapshot");
+        try {
+            Snapshot.write(ParserFactory.create(ParserType.TSV).parse(input, 1, 1980), snapshot);
+            Files.write(snapshot, new byte[] {0}, StandardOpenOption.APPEND);
+
+            Snapshot.read(snapshot, disaster -> {});
+        } finally {
+            Files.deleteIfExists(snapshot);
+        }
+    }
+}
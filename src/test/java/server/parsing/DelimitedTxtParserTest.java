@@ -5,10 +5,14 @@ import org.junit.Assert;
 
 
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 import server.parsing.ParserFactory.ParserType;
 
@@ -106,6 +110,27 @@ public class DelimitedTxtParserTest {
         }
     }
 
+    /**
+     * Streams the rows of a file to a consumer and compares them with the parsed list
+     * @throws IOException
+     */
+    @Test
+    public void testStreamingParse() throws IOException {
+        final Path filePath = Paths.get("./src/test/resources/input/ClimateRelatedDisasters.tsv");
+
+        for (final ParserType type : new ParserType[] {ParserType.TSV, ParserType.MAPPED_TSV}) {
+            final IParser parser = ParserFactory.create(type);
+            final List<NaturalDisaster> expected = parser.parse(filePath, 1, 1980);
+            final List<NaturalDisaster> streamed = new ArrayList<>();
+
+            parser.parse(filePath, 1, 1980, streamed::add);
+
+            Assert.assertEquals(expected.size(), streamed.size());
+            for (int i = 0; i < expected.size(); i++)
+                Assert.assertEquals(expected.get(i).toFullDescription(), streamed.get(i).toFullDescription());
+        }
+    }
+
     /**
      * Parses a file that is not delimited
      * @throws IOException
@@ -141,4 +166,106 @@ public class DelimitedTxtParserTest {
         List<NaturalDisaster> results = parser.parse(filePath, 1, 1980);
     }
 
+    /**
+     * Parses a large file in parallel and compares the result with the sequential parser
+     * @throws IOException
+     */
+    @Test
+    public void compareParallelAndSequentialParsers() throws IOException {
+        final List<String> lines = Files.readAllLines(Paths.get("./src/test/resources/input/ClimateRelatedDisasters.tsv"));
+        final List<String> copies = new ArrayList<>(lines);
+        while (copies.size() * 80 < DelimitedTxtParser.PARALLEL_THRESHOLD) copies.addAll(lines.subList(1, lines.size()));
+
+        final Path filePath = Files.createTempFile("disasters-", ".tsv");
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            Files.write(filePath, copies);
+            Assert.assertTrue(Files.size(filePath) >= DelimitedTxtParser.PARALLEL_THRESHOLD);
+
+            final List<NaturalDisaster> sequential = ParserFactory.create(ParserType.TSV).parse(filePath, 1, 1980);
+            final List<NaturalDisaster> parallel = ParserFactory.createParallelDelimitedTxtParser("\t", pool).parse(filePath, 1, 1980);
+
+            Assert.assertEquals(copies.size() - 1, parallel.size());
+            for (int i = 0; i < sequential.size(); i++)
+                Assert.assertEquals(sequential.get(i).toFullDescription(), parallel.get(i).toFullDescription());
+
+            Files.write(filePath, Arrays.asList("not a row"), StandardOpenOption.APPEND);
+            try {
+                ParserFactory.createParallelDelimitedTxtParser("\t", pool).parse(filePath, 1, 1980);
+                Assert.fail("A malformed line must be reported");
+            } catch (IOException e) {
+                // expected
+            }
+        } finally {
+            pool.shutdown();
+            Files.deleteIfExists(filePath);
+        }
+    }
+
+    /**
+     * Parses a file whose header skips years, with the sequential, the parallel and the mapped parsers
+     * @throws IOException
+     */
+    @Test
+    public void testHeaderDrivenYears() throws IOException {
+        final List<String> lines = new ArrayList<>(Arrays.asList("ObjectId,Country,ISO2,ISO3,Indicator,1900,1950,1951,2030"));
+        while (lines.size() * 30 < DelimitedTxtParser.PARALLEL_THRESHOLD) lines.add(lines.size() + ",Greece,GR,GRC,Flood,1,,2,3");
+
+        final Path filePath = Files.createTempFile("disasters-", ".csv");
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            Files.write(filePath, lines);
+
+            final IParser[] parsers = {
+                ParserFactory.create(ParserType.CSV),
+                ParserFactory.createParallelDelimitedTxtParser(",", pool),
+                new MappedDelimitedTxtParser(",", 1 << 12)
+            };
+
+            for (IParser parser: parsers) {
+                final List<NaturalDisaster> disasters = parser.parse(filePath, 1, 1980);
+                Assert.assertEquals(lines.size() - 1, disasters.size());
+
+                final NaturalDisaster last = disasters.get(disasters.size() - 1);
+                Assert.assertEquals(
+                    "[[1900, 1], [1951, 2], [2030, 3]]", 
+                    last.getTimeSeries().getOccurrences().toString()
+                );
+            }
+
+            // a column past the end of the header has no year
+            lines.add(lines.size() + ",Greece,GR,GRC,Flood,1,,2,3,4");
+            Files.write(filePath, lines);
+            for (IParser parser: parsers) {
+                try {
+                    parser.parse(filePath, 1, 1980);
+                    Assert.fail("A row with more columns than the header must be reported");
+                } catch (IOException e) {
+                    // expected
+                }
+            }
+            lines.remove(lines.size() - 1);
+
+            // without a header the years are consecutive from the initial year
+            Files.write(filePath, Arrays.asList("1,Greece,GR,GRC,Flood,1,,2,3,4"));
+            Assert.assertEquals(
+                "[[1980, 1], [1982, 2], [1983, 3], [1984, 4]]", 
+                ParserFactory.create(ParserType.CSV).parse(filePath, 0, 1980).get(0).getTimeSeries().getOccurrences().toString()
+            );
+
+            lines.set(0, "ObjectId,Country,ISO2,ISO3,Indicator,1900,1950,total,2030");
+            Files.write(filePath, lines);
+            for (IParser parser: parsers) {
+                try {
+                    parser.parse(filePath, 1, 1980);
+                    Assert.fail("A header that only names some years must be reported");
+                } catch (IOException e) {
+                    // expected
+                }
+            }
+        } finally {
+            pool.shutdown();
+            Files.deleteIfExists(filePath);
+        }
+    }
 }
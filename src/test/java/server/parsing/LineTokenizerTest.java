@@ -0,0 +1,67 @@
+package server.parsing;
+
+import org.junit.Test;
+import org.junit.Assert;
+
+
+import java.io.IOException;
+
+public class LineTokenizerTest {
+
+    /**
+     * Tokenizes a line with quoted fields, escaped quotes and empty fields
+     * @throws IOException
+     */
+    @Test
+    public void testQuotedFields() throws IOException {
+        final LineTokenizer tokenizer = new LineTokenizer(",");
+
+        Assert.assertEquals(6, tokenizer.tokenize("12,\"Bahamas, The\",BS,,\"say \"\"hi\"\"\","));
+        Assert.assertEquals(12, tokenizer.getInt(0));
+        Assert.assertEquals("Bahamas, The", tokenizer.get(1));
+        Assert.assertEquals(4, tokenizer.start(1));
+        Assert.assertEquals(16, tokenizer.end(1));
+        Assert.assertEquals("BS", tokenizer.get(2));
+        Assert.assertTrue(tokenizer.isEmpty(3));
+        Assert.assertEquals("say \"hi\"", tokenizer.get(4));
+        Assert.assertTrue(tokenizer.isEmpty(5));
+    }
+
+    /**
+     * Tokenizes lines with a delimiter that is special in regular expressions and with a multi-character delimiter
+     * @throws IOException
+     */
+    @Test
+    public void testLiteralDelimiters() throws IOException {
+        final LineTokenizer pipe = new LineTokenizer("|");
+        Assert.assertEquals(3, pipe.tokenize("a|b.c|7"));
+        Assert.assertEquals("b.c", pipe.get(1));
+        Assert.assertEquals(7, pipe.getInt(2));
+
+        final LineTokenizer doubleColon = new LineTokenizer("::");
+        Assert.assertEquals(3, doubleColon.tokenize("a:b::\"c::d\"::"));
+        Assert.assertEquals("a:b", doubleColon.get(0));
+        Assert.assertEquals("c::d", doubleColon.get(1));
+        Assert.assertTrue(doubleColon.isEmpty(2));
+    }
+
+    /**
+     * Tokenizes a line with an opening quote but no closing quote
+     * @throws IOException
+     */
+    @Test(expected = IOException.class)
+    public void testUnclosedQuote() throws IOException {
+        new LineTokenizer(",").tokenize("1,\"Bahamas, The,BS");
+    }
+
+    /**
+     * Parses a field that is not a number
+     * @throws IOException
+     */
+    @Test(expected = NumberFormatException.class)
+    public void testNotANumber() throws IOException {
+        final LineTokenizer tokenizer = new LineTokenizer("\t");
+        tokenizer.tokenize("1\t-2");
+        tokenizer.getInt(1);
+    }
+}
@@ -0,0 +1,94 @@
+package server.parsing;
+
+import org.junit.Test;
+import org.junit.Assert;
+
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+import server.parsing.ParserFactory.ParserType;
+
+import server.commons.NaturalDisaster;
+
+public class MappedDelimitedTxtParserTest {
+
+    /**
+     * Parses the same file with the mapped and the plain parser and compares the results
+     */
+    final private static void compareWithPlainParser(final Path filePath, final IParser mapped, final IParser plain) throws IOException {
+        final List<NaturalDisaster> expected = plain.parse(filePath, 1, 1980);
+        final List<NaturalDisaster> actual = mapped.parse(filePath, 1, 1980);
+
+        Assert.assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++)
+            Assert.assertEquals(expected.get(i).toFullDescription(), actual.get(i).toFullDescription());
+    }
+
+    /**
+     * Parses the full csv and tsv datasets, which contain quoted and accented country names
+     * @throws IOException
+     */
+    @Test
+    public void compareOutputs() throws IOException {
+        compareWithPlainParser(
+            Paths.get("./src/test/resources/input/ClimateRelatedDisasters.tsv"),
+            ParserFactory.create(ParserType.MAPPED_TSV),
+            ParserFactory.create(ParserType.TSV)
+        );
+        compareWithPlainParser(
+            Paths.get("./src/test/resources/input/ClimateRelatedDisasters.csv"),
+            ParserFactory.create(ParserType.MAPPED_CSV),
+            ParserFactory.create(ParserType.CSV)
+        );
+    }
+
+    /**
+     * Maps the file in windows smaller than a line, so that lines straddle windows and the windows have to widen
+     * @throws IOException
+     */
+    @Test
+    public void testSmallWindows() throws IOException {
+        compareWithPlainParser(
+            Paths.get("./src/test/resources/input/ClimateRelatedDisasters.tsv"),
+            new MappedDelimitedTxtParser("\t", 16),
+            ParserFactory.create(ParserType.TSV)
+        );
+    }
+
+    /**
+     * Parses a file with "\r\n" line ends whose last line has no line end, in windows that split its lines
+     * @throws IOException
+     */
+    @Test
+    public void testLastLineWithoutLineEnd() throws IOException {
+        Path filePath = Files.createTempFile("disasters-", ".csv");
+        try {
+            String text = "ObjectId,Country,ISO2,ISO3,Indicator,2000,2001\r\n1,Greece,GR,GRC,Flood,1,2\r\n2,Greece,GR,GRC,Storm,,3";
+            Files.write(filePath, text.getBytes(StandardCharsets.UTF_8));
+
+            for (int windowSize : new int[] {7, 1 << 12}) {
+                List<NaturalDisaster> disasters = new MappedDelimitedTxtParser(",", windowSize).parse(filePath, 1, 1980);
+                Assert.assertEquals(2, disasters.size());
+                Assert.assertEquals("[[2000, 1], [2001, 2]]", disasters.get(0).getTimeSeries().getOccurrences().toString());
+                Assert.assertEquals("[[2001, 3]]", disasters.get(1).getTimeSeries().getOccurrences().toString());
+            }
+        } finally {
+            Files.deleteIfExists(filePath);
+        }
+    }
+
+    /**
+     * Parses a file that is not delimited
+     * @throws IOException
+     */
+    @Test(expected = IOException.class)
+    public void parseFileWrongFormat() throws IOException {
+        Path filePath = Paths.get("./src/test/resources/output/GR-TOT.txt");
+        ParserFactory.create(ParserType.MAPPED_TSV).parse(filePath, 1, 1980);
+    }
+}
@@ -0,0 +1,71 @@
+package server.parsing;
+
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import engine.LoadBenchmark;
+
+import server.commons.NaturalDisaster;
+
+
+/**
+ * A stand-alone benchmark of the parallel mode of {@code DelimitedTxtParser}
+ * <p>
+ * The rows of ClimateRelatedDisasters.tsv are replicated until the file holds the requested number of rows, see
+ * {@link LoadBenchmark#scale}. The file is then parsed sequentially and in parallel with 1, 2, 4, ... threads, up
+ * to the number of available cores, and the benchmark reports the best time of every configuration and its
+ * speedup over the sequential parser.
+ * <p>
+ * Usage: {@code java server.parsing.ParallelParsingBenchmark [rows] [runs]}
+ */
+public class ParallelParsingBenchmark {
+
+    final private static Path SOURCE = Paths.get("src/test/resources/input/ClimateRelatedDisasters.tsv");
+
+    public static void main(final String[] args) throws IOException {
+        final int rows = args.length > 0 ? Integer.parseInt(args[0]) : 500_000;
+        final int runs = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        final Path input = LoadBenchmark.scale(SOURCE, rows);
+
+        try {
+            System.out.printf("%d rows, %.1f MB%n", rows, Files.size(input) / 1e6);
+
+            final double sequential = bestTime(new DelimitedTxtParser("\t"), input, runs);
+            System.out.printf("sequential: %.1f ms%n", sequential);
+
+            final int cores = Runtime.getRuntime().availableProcessors();
+            for (int threads = 1; threads <= cores; threads = threads < cores ? Math.min(2*threads, cores) : threads+1) {
+                final ForkJoinPool pool = new ForkJoinPool(threads);
+                try {
+                    final double parallel = bestTime(new DelimitedTxtParser("\t", pool), input, runs);
+                    System.out.printf("%2d threads: %.1f ms, speedup %.2fx%n", threads, parallel, sequential / parallel);
+                } finally {
+                    pool.shutdown();
+                }
+            }
+        } finally {
+            Files.deleteIfExists(input);
+        }
+    }
+
+    /**
+     * Returns the best time, in milliseconds, that a parser needed to parse a file in a number of runs
+     */
+    final private static double bestTime(final IParser parser, final Path input, final int runs) throws IOException {
+        long best = Long.MAX_VALUE;
+        for (int run = 0; run < runs; run++) {
+            final long start = System.nanoTime();
+            final List<NaturalDisaster> disasters = parser.parse(input, 1, 1980);
+            best = Math.min(best, System.nanoTime() - start);
+            if (disasters.isEmpty()) throw new AssertionError("Nothing was parsed");
+        }
+        return best / 1e6;
+    }
+}